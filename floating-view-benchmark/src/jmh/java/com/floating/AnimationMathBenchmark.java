@@ -0,0 +1,117 @@
+package com.floating;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class AnimationMathBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private static final long FRAME_TIME_MILLIS = 16L;
+
+    @Param({"720x1280", "1080x1920", "1440x2560"})
+    public String screen;
+
+    private int mScreenWidth;
+
+    private float[] mTimeRates;
+
+    private int[] mTouchX;
+
+    private int[] mTouchY;
+
+    private float[] mVelocityX;
+
+    private int mMoveLimitLeft;
+
+    private int mMoveLimitTop;
+
+    private int mMoveLimitRight;
+
+    private int mMoveLimitBottom;
+
+    private OvershootCurve mOvershootCurve;
+
+    private SnapAnimator mSnapAnimator;
+
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        final int separator = screen.indexOf('x');
+        mScreenWidth = Integer.parseInt(screen.substring(0, separator));
+        final int screenHeight = Integer.parseInt(screen.substring(separator + 1));
+        final int bubbleSize = mScreenWidth * 168 / 1080;
+        mMoveLimitLeft = -bubbleSize;
+        mMoveLimitTop = -bubbleSize * 2;
+        mMoveLimitRight = mScreenWidth + bubbleSize;
+        mMoveLimitBottom = screenHeight + bubbleSize;
+
+        // the same pseudo random touches on every run
+        mTimeRates = new float[SAMPLES];
+        mTouchX = new int[SAMPLES];
+        mTouchY = new int[SAMPLES];
+        mVelocityX = new float[SAMPLES];
+        long seed = 42;
+        for (int i = 0; i < SAMPLES; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            final int random = (int) (seed >>> 33);
+            mTimeRates[i] = (random % 1000) / 999.0f;
+            mTouchX[i] = random % (mScreenWidth + bubbleSize * 4) - bubbleSize * 2;
+            mTouchY[i] = (random >>> 7) % (screenHeight + bubbleSize * 4) - bubbleSize * 2;
+            mVelocityX[i] = (random >>> 3) % 8000 - 4000;
+        }
+        mOvershootCurve = new OvershootCurve(1.25f);
+        mSnapAnimator = new SnapAnimator();
+    }
+
+    private int next() {
+        mIndex = (mIndex + 1) & (SAMPLES - 1);
+        return mIndex;
+    }
+
+    @Benchmark
+    public float trackingCurveLookup() {
+        return EasingCurves.TRACKING.getInterpolation(mTimeRates[next()]);
+    }
+
+    @Benchmark
+    public float trackingCurveClosedForm() {
+        return EasingCurves.calcTrackingPosition(mTimeRates[next()]);
+    }
+
+    @Benchmark
+    public float overshootCurve() {
+        final int i = next();
+        mOvershootCurve.setTension(1.25f + (i & 7) * 0.25f);
+        return mOvershootCurve.getInterpolation(mTimeRates[i]);
+    }
+
+    // one frame of FloatingAnimationHandler while the finger is down
+    @Benchmark
+    public int trackingFrame() {
+        final int i = next();
+        final float base = EasingCurves.TRACKING.getInterpolation(mTimeRates[i]);
+        final float targetX = FloatingMath.clamp(mTouchX[i], mMoveLimitLeft, mMoveLimitRight);
+        final float targetY = FloatingMath.clamp(mTouchY[i], mMoveLimitTop, mMoveLimitBottom);
+        return (int) FloatingMath.calcTrackingPosition(0, targetX, base) + (int) FloatingMath.calcTrackingPosition(0, targetY, base);
+    }
+
+    // a whole release snap, 450ms at 60fps
+    @Benchmark
+    public int snapAnimation() {
+        final int i = next();
+        mOvershootCurve.setTension(FloatingMath.calcEdgeSnapTension(mVelocityX[i], 1.25f, 4.0f));
+        mSnapAnimator.start(mTouchX[i], mTouchY[i], 0, mTouchY[i], 450L, mOvershootCurve);
+        long frameTime = 0;
+        int checksum = 0;
+        while (mSnapAnimator.step(frameTime += FRAME_TIME_MILLIS)) {
+            checksum += mSnapAnimator.getCurrentX();
+        }
+        return checksum;
+    }
+}
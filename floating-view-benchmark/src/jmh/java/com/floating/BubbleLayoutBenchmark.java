@@ -0,0 +1,84 @@
+package com.floating;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class BubbleLayoutBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private static final float FRAME_MILLIS = 16.0f;
+
+    @Param({"720x1280", "1080x1920", "1440x2560"})
+    public String screen;
+
+    @Param({"1", "10", "30"})
+    public int bubbleCount;
+
+    private float[] mLeaderX;
+
+    private float[] mLeaderY;
+
+    private SnapAnchorIndex mSnapAnchorIndex;
+
+    private BubbleStack mBubbleStack;
+
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        final int separator = screen.indexOf('x');
+        final int screenWidth = Integer.parseInt(screen.substring(0, separator));
+        final int screenHeight = Integer.parseInt(screen.substring(separator + 1));
+        final int bubbleSize = screenWidth * 168 / 1080;
+
+        // an anchor per bubble slot down both edges
+        mSnapAnchorIndex = new SnapAnchorIndex();
+        final int slots = Math.max(bubbleCount, 2);
+        for (int i = 0; i < slots; i++) {
+            final int y = (screenHeight - bubbleSize) * i / (slots - 1);
+            mSnapAnchorIndex.add(0, y);
+            mSnapAnchorIndex.add(screenWidth - bubbleSize, y);
+        }
+        mSnapAnchorIndex.build();
+
+        mBubbleStack = new BubbleStack(bubbleCount);
+        mBubbleStack.setCount(bubbleCount);
+        mBubbleStack.setSpacing(0, -screenWidth / 90.0f, bubbleSize);
+        for (int i = 0; i < bubbleCount; i++) {
+            mBubbleStack.setPosition(i, 0, 0);
+        }
+
+        mLeaderX = new float[SAMPLES];
+        mLeaderY = new float[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            // a finger circling the screen
+            final double angle = i * 2 * Math.PI / SAMPLES;
+            mLeaderX[i] = (float) (screenWidth / 2 + Math.cos(angle) * screenWidth / 3);
+            mLeaderY[i] = (float) (screenHeight / 2 + Math.sin(angle) * screenHeight / 3);
+        }
+    }
+
+    private int next() {
+        mIndex = (mIndex + 1) & (SAMPLES - 1);
+        return mIndex;
+    }
+
+    @Benchmark
+    public int nearestAnchor() {
+        final int i = next();
+        return mSnapAnchorIndex.findNearest(mLeaderX[i], mLeaderY[i]);
+    }
+
+    // one frame of the whole stack trailing the dragged bubble
+    @Benchmark
+    public boolean stackFrame() {
+        final int i = next();
+        mBubbleStack.setLeader(mLeaderX[i], mLeaderY[i]);
+        return mBubbleStack.step(FRAME_MILLIS);
+    }
+}
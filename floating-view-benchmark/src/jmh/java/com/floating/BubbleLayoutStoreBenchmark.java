@@ -0,0 +1,51 @@
+package com.floating;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+
+@State(Scope.Thread)
+public class BubbleLayoutStoreBenchmark {
+
+    private static final int BUBBLE_COUNT = 20;
+
+    private String[] mIds;
+
+    private File mFile;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        mFile = File.createTempFile("bubbles", ".bin");
+        mIds = new String[BUBBLE_COUNT];
+        final BubbleLayoutStore store = new BubbleLayoutStore(mFile);
+        for (int i = 0; i < BUBBLE_COUNT; i++) {
+            mIds[i] = "bubble-" + i;
+            store.put(mIds[i], i % 2 == 0 ? -16 : 928, 100 + i * 80, i % 2 != 0);
+        }
+        store.close();
+        store.awaitClosed(10000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    // what a process start pays before the first bubble can be added where it was left
+    @Benchmark
+    public int coldRestore() {
+        final BubbleLayoutStore store = new BubbleLayoutStore(mFile);
+        int checksum = 0;
+        for (int i = 0; i < BUBBLE_COUNT; i++) {
+            final BubbleLayoutStore.Entry entry = store.get(mIds[i]);
+            checksum += entry.x + entry.y;
+        }
+        store.close();
+        return checksum;
+    }
+}
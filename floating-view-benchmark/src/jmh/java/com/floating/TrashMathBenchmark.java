@@ -0,0 +1,103 @@
+package com.floating;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class TrashMathBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"720x1280", "1080x1920", "1440x2560"})
+    public String screen;
+
+    // the trash plus this many app drop zones
+    @Param({"0", "10", "30"})
+    public int dropZoneCount;
+
+    private int mScreenWidth;
+
+    private int mScreenHeight;
+
+    private int mBubbleSize;
+
+    private int mLimitLeft;
+
+    private int mLimitWidth;
+
+    private int mLimitHeight;
+
+    private float mStickyYRange;
+
+    private int[] mBubbleX;
+
+    private int[] mBubbleY;
+
+    private DropZoneIndex mDropZoneIndex;
+
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        final int separator = screen.indexOf('x');
+        mScreenWidth = Integer.parseInt(screen.substring(0, separator));
+        mScreenHeight = Integer.parseInt(screen.substring(separator + 1));
+        final float density = mScreenWidth / 360.0f;
+        mBubbleSize = (int) (56 * density);
+        mLimitLeft = (int) (-22 * density);
+        mLimitWidth = -mLimitLeft * 2;
+        mLimitHeight = (int) (88 * density);
+        mStickyYRange = 164 * density * 0.2f;
+
+        mDropZoneIndex = new DropZoneIndex((int) (64 * density));
+        mDropZoneIndex.reset(mScreenWidth, mScreenHeight);
+        final int trashLeft = mScreenWidth / 2 - (int) (60 * density);
+        mDropZoneIndex.add(trashLeft, -(int) (164 * density), mScreenWidth - trashLeft, (int) (80 * density));
+        final int zoneSize = (int) (72 * density);
+        for (int i = 0; i < dropZoneCount; i++) {
+            final int left = (i * 7919) % (mScreenWidth - zoneSize);
+            final int top = (i * 104729) % (mScreenHeight - zoneSize);
+            mDropZoneIndex.add(left, top, left + zoneSize, top + zoneSize);
+        }
+
+        mBubbleX = new int[SAMPLES];
+        mBubbleY = new int[SAMPLES];
+        long seed = 7;
+        for (int i = 0; i < SAMPLES; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            final int random = (int) (seed >>> 33);
+            mBubbleX[i] = random % mScreenWidth - mBubbleSize / 2;
+            mBubbleY[i] = (random >>> 7) % mScreenHeight - mBubbleSize / 2;
+        }
+    }
+
+    private int next() {
+        mIndex = (mIndex + 1) & (SAMPLES - 1);
+        return mIndex;
+    }
+
+    // one frame of the trash following the dragged bubble
+    @Benchmark
+    public float trashPosition() {
+        final int i = next();
+        final float positionX = FloatingMath.calcTrashPositionX(0, mBubbleX[i], mBubbleSize, mScreenWidth, mLimitLeft, mLimitWidth);
+        final float stickyY = FloatingMath.calcTrashStickyY(mBubbleY[i], mBubbleSize, mScreenHeight, mStickyYRange, mLimitHeight);
+        return positionX + stickyY;
+    }
+
+    @Benchmark
+    public int intersectRect() {
+        final int i = next();
+        return mDropZoneIndex.findRect(mBubbleX[i], mBubbleY[i], mBubbleX[i] + mBubbleSize, mBubbleY[i] + mBubbleSize);
+    }
+
+    @Benchmark
+    public int intersectCircle() {
+        final int i = next();
+        final float radius = mBubbleSize / 2.0f;
+        return mDropZoneIndex.findCircle(mBubbleX[i] + radius, mBubbleY[i] + radius, radius);
+    }
+}
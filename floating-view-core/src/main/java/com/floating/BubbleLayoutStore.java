@@ -0,0 +1,220 @@
+package com.floating;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+class BubbleLayoutStore {
+
+    // "FVL" and the format version
+    private static final int MAGIC = 0x46564C01;
+
+    // a snap settles well within this, its frames end up in a single write
+    static final long WRITE_DELAY_MILLIS = 500L;
+
+    static class Entry {
+
+        int x;
+
+        int y;
+
+        boolean isOnRight;
+    }
+
+    private final File mFile;
+
+    private final HashMap<String, Entry> mEntries;
+
+    private final ScheduledExecutorService mExecutor;
+
+    private final Runnable mWriteRunnable;
+
+    private volatile boolean mIsLoaded;
+
+    private boolean mIsWriteScheduled;
+
+    private IOException mLastError;
+
+    BubbleLayoutStore(File file) {
+        mFile = file;
+        mEntries = new HashMap<>();
+        mExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "FloatingView-layout");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mWriteRunnable = new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        };
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        });
+    }
+
+    // read on the writer thread, a get before that finished waits for it
+    synchronized Entry get(String id) {
+        load();
+        return mEntries.get(id);
+    }
+
+    synchronized void put(String id, int x, int y, boolean isOnRight) {
+        load();
+        Entry entry = mEntries.get(id);
+        if (entry == null) {
+            entry = new Entry();
+            mEntries.put(id, entry);
+        } else if (entry.x == x && entry.y == y && entry.isOnRight == isOnRight) {
+            return;
+        }
+        entry.x = x;
+        entry.y = y;
+        entry.isOnRight = isOnRight;
+        scheduleWrite();
+    }
+
+    synchronized void remove(String id) {
+        load();
+        if (mEntries.remove(id) != null) {
+            scheduleWrite();
+        }
+    }
+
+    synchronized int size() {
+        load();
+        return mEntries.size();
+    }
+
+    boolean isLoaded() {
+        return mIsLoaded;
+    }
+
+    // a pending write still goes out, then the writer thread ends
+    void close() {
+        mExecutor.shutdown();
+    }
+
+    boolean awaitClosed(long timeoutMillis) throws InterruptedException {
+        return mExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized IOException getLastError() {
+        return mLastError;
+    }
+
+    private void scheduleWrite() {
+        if (!mIsWriteScheduled && !mExecutor.isShutdown()) {
+            mIsWriteScheduled = true;
+            mExecutor.schedule(mWriteRunnable, WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void load() {
+        if (mIsLoaded) {
+            return;
+        }
+        if (!mFile.exists()) {
+            mIsLoaded = true;
+            return;
+        }
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            if (input.readInt() != MAGIC) {
+                return;
+            }
+            final int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                final Entry entry = new Entry();
+                final String id = input.readUTF();
+                entry.x = input.readInt();
+                entry.y = input.readInt();
+                entry.isOnRight = input.readBoolean();
+                mEntries.put(id, entry);
+            }
+        } catch (IOException e) {
+            // a damaged file only costs the saved positions
+            mLastError = e;
+            mEntries.clear();
+        } finally {
+            closeQuietly(input);
+            mIsLoaded = true;
+        }
+    }
+
+    private void write() {
+        // copy under the lock, write outside of it
+        final String[] ids;
+        final int[] values;
+        synchronized (this) {
+            mIsWriteScheduled = false;
+            final int size = mEntries.size();
+            ids = new String[size];
+            values = new int[size * 3];
+            int i = 0;
+            for (Map.Entry<String, Entry> mapEntry : mEntries.entrySet()) {
+                final Entry entry = mapEntry.getValue();
+                ids[i] = mapEntry.getKey();
+                values[i * 3] = entry.x;
+                values[i * 3 + 1] = entry.y;
+                values[i * 3 + 2] = entry.isOnRight ? 1 : 0;
+                i++;
+            }
+        }
+
+        // a crash mid-write leaves the previous file in place
+        final File tempFile = new File(mFile.getPath() + ".tmp");
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            output.writeInt(MAGIC);
+            output.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                output.writeUTF(ids[i]);
+                output.writeInt(values[i * 3]);
+                output.writeInt(values[i * 3 + 1]);
+                output.writeBoolean(values[i * 3 + 2] != 0);
+            }
+            output.close();
+            output = null;
+            if (!tempFile.renameTo(mFile)) {
+                throw new IOException("Cannot replace " + mFile);
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                mLastError = e;
+            }
+        } finally {
+            closeQuietly(output);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
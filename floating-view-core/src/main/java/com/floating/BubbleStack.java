@@ -0,0 +1,142 @@
+package com.floating;
+
+class BubbleStack {
+
+    private static final float STIFFNESS = 700.0f;
+
+    // every bubble further down the stack gets a softer spring, so it trails behind the one before
+    private static final float STIFFNESS_FALLOFF = 0.18f;
+
+    private static final float MAX_STEP_SECONDS = 0.032f;
+
+    private static final float SETTLE_DISTANCE = 0.5f;
+
+    private static final float SETTLE_VELOCITY = 8.0f;
+
+    private float[] mX;
+
+    private float[] mY;
+
+    private float[] mVelocityX;
+
+    private float[] mVelocityY;
+
+    private float[] mStiffness;
+
+    private float[] mDamping;
+
+    private int mCount;
+
+    private float mStackOffsetX;
+
+    private float mStackOffsetY;
+
+    private float mRowSpacing;
+
+    private float mExpandFraction;
+
+    BubbleStack(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    private void allocate(int capacity) {
+        final float[] x = new float[capacity];
+        final float[] y = new float[capacity];
+        final float[] velocityX = new float[capacity];
+        final float[] velocityY = new float[capacity];
+        if (mX != null) {
+            System.arraycopy(mX, 0, x, 0, mCount);
+            System.arraycopy(mY, 0, y, 0, mCount);
+            System.arraycopy(mVelocityX, 0, velocityX, 0, mCount);
+            System.arraycopy(mVelocityY, 0, velocityY, 0, mCount);
+        }
+        mX = x;
+        mY = y;
+        mVelocityX = velocityX;
+        mVelocityY = velocityY;
+        mStiffness = new float[capacity];
+        mDamping = new float[capacity];
+        for (int i = 0; i < capacity; i++) {
+            mStiffness[i] = STIFFNESS / (1.0f + i * STIFFNESS_FALLOFF);
+            // critically damped
+            mDamping[i] = (float) (2.0 * Math.sqrt(mStiffness[i]));
+        }
+    }
+
+    void setCount(int count) {
+        if (count > mX.length) {
+            allocate(Math.max(count, mX.length * 2));
+        }
+        mCount = count;
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    void setPosition(int index, float x, float y) {
+        mX[index] = x;
+        mY[index] = y;
+        mVelocityX[index] = 0;
+        mVelocityY[index] = 0;
+    }
+
+    // the leader is placed, never simulated
+    void setLeader(float x, float y) {
+        mX[0] = x;
+        mY[0] = y;
+    }
+
+    void setSpacing(float stackOffsetX, float stackOffsetY, float rowSpacing) {
+        mStackOffsetX = stackOffsetX;
+        mStackOffsetY = stackOffsetY;
+        mRowSpacing = rowSpacing;
+    }
+
+    // 0 stacks every bubble behind the one before it, 1 lines them up in a row next to the leader
+    void setExpandFraction(float expandFraction) {
+        mExpandFraction = expandFraction;
+    }
+
+    boolean step(float elapsedMillis) {
+        final float dt = Math.min(elapsedMillis / 1000.0f, MAX_STEP_SECONDS);
+        final float leaderX = mX[0];
+        final float leaderY = mY[0];
+        final float expand = mExpandFraction;
+        boolean isMoving = false;
+        for (int i = 1; i < mCount; i++) {
+            // follow the bubble before, which has already moved in this pass
+            final float chainX = mX[i - 1] + mStackOffsetX;
+            final float chainY = mY[i - 1] + mStackOffsetY;
+            final float targetX = chainX + (leaderX + i * mRowSpacing - chainX) * expand;
+            final float targetY = chainY + (leaderY - chainY) * expand;
+
+            final float dx = targetX - mX[i];
+            final float dy = targetY - mY[i];
+            final float stiffness = mStiffness[i];
+            final float damping = mDamping[i];
+            float velocityX = mVelocityX[i];
+            float velocityY = mVelocityY[i];
+            velocityX += (stiffness * dx - damping * velocityX) * dt;
+            velocityY += (stiffness * dy - damping * velocityY) * dt;
+            mX[i] += velocityX * dt;
+            mY[i] += velocityY * dt;
+            mVelocityX[i] = velocityX;
+            mVelocityY[i] = velocityY;
+
+            if (Math.abs(dx) > SETTLE_DISTANCE || Math.abs(dy) > SETTLE_DISTANCE
+                    || Math.abs(velocityX) > SETTLE_VELOCITY || Math.abs(velocityY) > SETTLE_VELOCITY) {
+                isMoving = true;
+            }
+        }
+        return isMoving;
+    }
+
+    float getX(int index) {
+        return mX[index];
+    }
+
+    float getY(int index) {
+        return mY[index];
+    }
+}
@@ -0,0 +1,8 @@
+package com.floating;
+
+interface Clock {
+
+    long uptimeMillis();
+
+    long nanoTime();
+}
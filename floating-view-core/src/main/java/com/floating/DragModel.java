@@ -0,0 +1,582 @@
+package com.floating;
+
+// the drag of one bubble in window coordinates, y grows from the bottom of the screen as with the overlay gravity
+class DragModel {
+
+    static final int STATE_NORMAL = 0;
+
+    static final int STATE_INTERSECTING = 1;
+
+    static final int STATE_FINISHING = 2;
+
+    static final int DRAG_MODE_DEFAULT = 1;
+
+    static final int DRAG_MODE_LOW_LATENCY = 2;
+
+    private static final float MAX_MOVE_TO_EDGE_OVERSHOOT_TENSION = 4.0f;
+
+    private static final float SNAP_PROJECTION_SECONDS = 0.2f;
+
+    // the window update issued this frame shows up on the next one
+    private static final long PREDICTION_TARGET_MILLIS = 16L;
+
+    private static final long PREDICTION_MAX_LEAD_MILLIS = 24L;
+
+    private static final float PREDICTION_MAX_DISTANCE_DP = 24.0f;
+
+    private final Clock mClock;
+
+    private final float mDensity;
+
+    private final float mMoveThreshold;
+
+    private int mScreenWidth;
+
+    private int mScreenHeight;
+
+    private int mStatusBarHeight;
+
+    private int mBubbleWidth;
+
+    private int mBubbleHeight;
+
+    private int mOverMargin;
+
+    private int mMoveLimitLeft;
+
+    private int mMoveLimitTop;
+
+    private int mMoveLimitRight;
+
+    private int mMoveLimitBottom;
+
+    private int mPositionLimitLeft;
+
+    private int mPositionLimitTop;
+
+    private int mPositionLimitRight;
+
+    private int mPositionLimitBottom;
+
+    private int mX;
+
+    private int mY;
+
+    private boolean mIsOnRight;
+
+    private long mTouchDownTime;
+
+    private float mScreenTouchDownX;
+
+    private float mScreenTouchDownY;
+
+    private boolean mIsMoveAccept;
+
+    private float mScreenTouchX;
+
+    private float mScreenTouchY;
+
+    private float mLocalTouchX;
+
+    private float mLocalTouchY;
+
+    private long mTouchEventTime;
+
+    private int mState;
+
+    private boolean mIsTracking;
+
+    // false once the tracker caught its target, a new target wakes it
+    private boolean mIsTrackingAwake;
+
+    private float mTouchPositionX;
+
+    private float mTouchPositionY;
+
+    private float mTargetPositionX;
+
+    private float mTargetPositionY;
+
+    private int mLastPositionX;
+
+    private int mLastPositionY;
+
+    private final TrackingAnimator mTrackingAnimator;
+
+    private final SnapAnimator mSnapAnimator;
+
+    private final OvershootCurve mMoveEdgeOvershootCurve;
+
+    private EasingCurve mEdgeSnapCurve;
+
+    private SnapAnchors mSnapAnchors;
+
+    private final SnapAnchorIndex mSnapAnchorIndex;
+
+    private boolean mIsSnapAnchorIndexDirty;
+
+    private int mDragMode;
+
+    private TouchPredictor mTouchPredictor;
+
+    private FloatingViewMetrics mMetrics;
+
+    DragModel(Clock clock, float density, int screenWidth, int screenHeight) {
+        mClock = clock;
+        mDensity = density;
+        mMoveThreshold = FloatingMath.MOVE_THRESHOLD_DP * density;
+        mScreenWidth = screenWidth;
+        mScreenHeight = screenHeight;
+        mState = STATE_NORMAL;
+        mDragMode = DRAG_MODE_DEFAULT;
+        mTrackingAnimator = new TrackingAnimator(EasingCurves.TRACKING);
+        mSnapAnimator = new SnapAnimator();
+        mMoveEdgeOvershootCurve = new OvershootCurve(FloatingMath.MOVE_TO_EDGE_OVERSHOOT_TENSION);
+        mSnapAnchorIndex = new SnapAnchorIndex();
+    }
+
+    // return true if the screen size changed and the bubble was moved onto the new one
+    boolean layout(int screenWidth, int screenHeight, int statusBarHeight, int bubbleWidth, int bubbleHeight) {
+        final boolean isScreenChanged = screenWidth != mScreenWidth || screenHeight != mScreenHeight;
+        final int oldPositionLimitHeight = mPositionLimitBottom - mPositionLimitTop;
+        mScreenWidth = screenWidth;
+        mScreenHeight = screenHeight;
+        mStatusBarHeight = statusBarHeight;
+        mBubbleWidth = bubbleWidth;
+        mBubbleHeight = bubbleHeight;
+        mMoveLimitLeft = -bubbleWidth;
+        mMoveLimitTop = -bubbleHeight * 2;
+        mMoveLimitRight = screenWidth + bubbleWidth;
+        mMoveLimitBottom = screenHeight + bubbleHeight;
+        mPositionLimitLeft = -mOverMargin;
+        mPositionLimitTop = 0;
+        mPositionLimitRight = screenWidth - bubbleWidth + mOverMargin;
+        mPositionLimitBottom = screenHeight - statusBarHeight - bubbleHeight;
+        mIsSnapAnchorIndexDirty = true;
+        if (!isScreenChanged) {
+            return false;
+        }
+
+        mX = mX > (screenWidth - bubbleWidth) / 2 ? mPositionLimitRight : mPositionLimitLeft;
+        final int newY = (int) (mY * (mPositionLimitBottom - mPositionLimitTop) / (float) oldPositionLimitHeight + 0.5f);
+        mY = FloatingMath.clamp(newY, mPositionLimitTop, mPositionLimitBottom);
+        if (mSnapAnchors != null) {
+            moveToAnchor(mX, mY, 0, 0, false);
+        }
+        return true;
+    }
+
+    void setPosition(int x, int y) {
+        mX = x;
+        mY = y;
+    }
+
+    // return true if the bubble had to be moved back within the limits, it keeps its side
+    boolean clampToPositionLimit() {
+        final int x = FloatingMath.clamp(mX, mPositionLimitLeft, mPositionLimitRight);
+        final int y = FloatingMath.clamp(mY, mPositionLimitTop, mPositionLimitBottom);
+        if (x == mX && y == mY) {
+            return false;
+        }
+        mX = mIsOnRight ? mPositionLimitRight : mPositionLimitLeft;
+        mY = y;
+        return true;
+    }
+
+    void onTouchDown(float rawX, float rawY, float localX, float localY, long eventTime, long downTime) {
+        cancelSnap();
+        mScreenTouchX = rawX;
+        mScreenTouchY = rawY;
+        mScreenTouchDownX = rawX;
+        mScreenTouchDownY = rawY;
+        mLocalTouchX = localX;
+        mLocalTouchY = localY;
+        mIsMoveAccept = false;
+        mTouchEventTime = eventTime;
+        if (mDragMode == DRAG_MODE_LOW_LATENCY) {
+            mTouchPredictor.reset();
+            mTouchPredictor.addSample(eventTime, rawX, rawY);
+        }
+        updateTouchPosition();
+        mTouchDownTime = downTime;
+    }
+
+    // moves and ups of an earlier gesture are ignored
+    boolean isCurrentGesture(long downTime) {
+        return mTouchDownTime == downTime;
+    }
+
+    // the samples batched into a move before its current one
+    void addTouchSample(long eventTime, float rawX, float rawY) {
+        if (mDragMode == DRAG_MODE_LOW_LATENCY) {
+            mTouchPredictor.addSample(eventTime, rawX, rawY);
+        }
+    }
+
+    // return false while the finger is still within the move threshold
+    boolean onTouchMove(float rawX, float rawY, long eventTime) {
+        mScreenTouchX = rawX;
+        mScreenTouchY = rawY;
+        addTouchSample(eventTime, rawX, rawY);
+        if (!mIsMoveAccept && Math.abs(rawX - mScreenTouchDownX) < mMoveThreshold && Math.abs(rawY - mScreenTouchDownY) < mMoveThreshold) {
+            return false;
+        }
+        mIsMoveAccept = true;
+        mTouchEventTime = eventTime;
+        updateTouchPosition();
+        return true;
+    }
+
+    // return true if the bubble was dragged and now snaps, false for a tap
+    boolean onTouchUp(float rawX, float rawY, float velocityX, float velocityY) {
+        mScreenTouchX = rawX;
+        mScreenTouchY = rawY;
+        stopTracking();
+        if (!mIsMoveAccept) {
+            return false;
+        }
+        settle(velocityX, velocityY, true);
+        return true;
+    }
+
+    // velocities in pixels per second as the touch reports them, y growing downwards
+    void settle(float velocityX, float velocityY, boolean withAnimation) {
+        settleAt(getXByTouch(), getYByTouch(), velocityX, velocityY, withAnimation);
+    }
+
+    void settleAt(int currentX, int currentY, float velocityX, float velocityY, boolean withAnimation) {
+        if (mSnapAnchors != null) {
+            moveToAnchor(currentX, currentY, velocityX, velocityY, withAnimation);
+        } else {
+            moveToEdge(currentX, currentY, withAnimation);
+        }
+    }
+
+    private void moveToEdge(int currentX, int currentY, boolean withAnimation) {
+        final boolean isMoveRightEdge = currentX > (mScreenWidth - mBubbleWidth) / 2;
+        final int goalPositionX = isMoveRightEdge ? mPositionLimitRight : mPositionLimitLeft;
+        final int goalPositionY = FloatingMath.clamp(currentY, mPositionLimitTop, mPositionLimitBottom);
+        mIsOnRight = isMoveRightEdge;
+
+        if (withAnimation) {
+            startSnap(currentX, goalPositionY, goalPositionX, goalPositionY, getEdgeSnapCurve(FloatingMath.MOVE_TO_EDGE_OVERSHOOT_TENSION));
+        } else {
+            mX = goalPositionX;
+            mY = goalPositionY;
+        }
+        resetTouch();
+    }
+
+    private void moveToAnchor(int currentX, int currentY, float velocityX, float velocityY, boolean withAnimation) {
+        if (mIsSnapAnchorIndexDirty) {
+            mSnapAnchors.resolve(mPositionLimitLeft, mPositionLimitTop, mPositionLimitRight, mPositionLimitBottom, mSnapAnchorIndex);
+            mIsSnapAnchorIndexDirty = false;
+        }
+        if (mSnapAnchorIndex.getCount() == 0) {
+            moveToEdge(currentX, currentY, withAnimation);
+            return;
+        }
+
+        // window y grows upwards, touch velocity grows downwards
+        final float projectedX = FloatingMath.clamp(currentX + velocityX * SNAP_PROJECTION_SECONDS, mPositionLimitLeft, mPositionLimitRight);
+        final float projectedY = FloatingMath.clamp(currentY - velocityY * SNAP_PROJECTION_SECONDS, mPositionLimitTop, mPositionLimitBottom);
+        final int anchor = mSnapAnchorIndex.findNearest(projectedX, projectedY);
+        final int goalPositionX = mSnapAnchorIndex.getX(anchor);
+        final int goalPositionY = mSnapAnchorIndex.getY(anchor);
+        mIsOnRight = goalPositionX > (mScreenWidth - mBubbleWidth) / 2;
+
+        if (withAnimation) {
+            final float velocity = (float) Math.hypot(velocityX, velocityY);
+            startSnap(currentX, currentY, goalPositionX, goalPositionY, getEdgeSnapCurve(FloatingMath.calcEdgeSnapTension(velocity, FloatingMath.MOVE_TO_EDGE_OVERSHOOT_TENSION, MAX_MOVE_TO_EDGE_OVERSHOOT_TENSION)));
+        } else {
+            mX = goalPositionX;
+            mY = goalPositionY;
+        }
+        resetTouch();
+    }
+
+    private void resetTouch() {
+        mLocalTouchX = 0;
+        mLocalTouchY = 0;
+        mScreenTouchDownX = 0;
+        mScreenTouchDownY = 0;
+        mIsMoveAccept = false;
+    }
+
+    private EasingCurve getEdgeSnapCurve(float overshootTension) {
+        if (mEdgeSnapCurve != null) {
+            return mEdgeSnapCurve;
+        }
+        mMoveEdgeOvershootCurve.setTension(overshootTension);
+        return mMoveEdgeOvershootCurve;
+    }
+
+    private void startSnap(int startX, int startY, int goalX, int goalY, EasingCurve curve) {
+        mSnapAnimator.start(startX, startY, goalX, goalY, FloatingMath.MOVE_TO_EDGE_DURATION, curve);
+    }
+
+    // return true while the snap has frames left
+    boolean stepSnap(long frameTimeMillis) {
+        final boolean isRunning = mSnapAnimator.step(frameTimeMillis);
+        mX = mSnapAnimator.getCurrentX();
+        mY = mSnapAnimator.getCurrentY();
+        return isRunning;
+    }
+
+    // return true if a snap was running
+    boolean cancelSnap() {
+        if (!mSnapAnimator.isRunning()) {
+            return false;
+        }
+        mSnapAnimator.cancel();
+        return true;
+    }
+
+    boolean isSnapping() {
+        return mSnapAnimator.isRunning();
+    }
+
+    // the bubble follows the finger from where it is now
+    void startTracking() {
+        mTrackingAnimator.start(mX, mY);
+        mIsTracking = true;
+        mIsTrackingAwake = true;
+    }
+
+    void stopTracking() {
+        mIsTracking = false;
+        mIsTrackingAwake = false;
+    }
+
+    boolean isTrackingAwake() {
+        return mIsTrackingAwake;
+    }
+
+    // return true while the tracker wants the next frame
+    boolean stepTracking(long frameTimeMillis) {
+        if (!mIsTracking) {
+            mIsTrackingAwake = false;
+            return false;
+        }
+        if (mState == STATE_NORMAL) {
+            int touchPositionX = (int) mTouchPositionX;
+            int touchPositionY = (int) mTouchPositionY;
+            float leadMillis = 0;
+            if (mDragMode == DRAG_MODE_LOW_LATENCY && mIsMoveAccept) {
+                mTouchPredictor.predict(frameTimeMillis + PREDICTION_TARGET_MILLIS);
+                touchPositionX = getXByScreen(mTouchPredictor.getPredictedX());
+                touchPositionY = getYByScreen(mTouchPredictor.getPredictedY());
+                leadMillis = mTouchPredictor.getLeadMillis();
+            }
+            final float targetPositionX = FloatingMath.clamp(touchPositionX, mMoveLimitLeft, mMoveLimitRight);
+            final float targetPositionY = FloatingMath.clamp(touchPositionY, mMoveLimitTop, mMoveLimitBottom);
+            final boolean isMoved = track(frameTimeMillis, targetPositionX, targetPositionY);
+            if (mMetrics != null && mIsMoveAccept && (mX != mLastPositionX || mY != mLastPositionY)) {
+                mMetrics.recordDragLatency(mClock.uptimeMillis() - mTouchEventTime - leadMillis);
+            }
+            mLastPositionX = mX;
+            mLastPositionY = mY;
+            return isMoved;
+        } else if (mState == STATE_INTERSECTING) {
+            return track(frameTimeMillis, mTargetPositionX - mBubbleWidth / 2, mTargetPositionY - mBubbleHeight / 2);
+        }
+        stopTracking();
+        return false;
+    }
+
+    private boolean track(long frameTimeMillis, float targetX, float targetY) {
+        final float timeRate = mTrackingAnimator.step(frameTimeMillis, mX, mY, targetX, targetY);
+        final int x = mTrackingAnimator.getX();
+        final int y = mTrackingAnimator.getY();
+        if (mX != x || mY != y) {
+            mX = x;
+            mY = y;
+            return true;
+        }
+        // converged on the target, sleep until it moves
+        if (timeRate >= 1.0f) {
+            mIsTrackingAwake = false;
+            return false;
+        }
+        return true;
+    }
+
+    private void wakeTracking() {
+        if (mIsTracking) {
+            mIsTrackingAwake = true;
+        }
+    }
+
+    private void updateTouchPosition() {
+        final float positionX = getXByTouch();
+        final float positionY = getYByTouch();
+        if (mTouchPositionX != positionX || mTouchPositionY != positionY) {
+            mTouchPositionX = positionX;
+            mTouchPositionY = positionY;
+            wakeTracking();
+        }
+    }
+
+    private void setState(int newState) {
+        if (mState != newState) {
+            mTrackingAnimator.restart();
+            wakeTracking();
+        }
+        mState = newState;
+    }
+
+    void setNormal() {
+        setState(STATE_NORMAL);
+        updateTouchPosition();
+    }
+
+    // the bubble is drawn to the center of the trash icon
+    void setIntersecting(int centerX, int centerY) {
+        setState(STATE_INTERSECTING);
+        if (mTargetPositionX != centerX || mTargetPositionY != centerY) {
+            mTargetPositionX = centerX;
+            mTargetPositionY = centerY;
+            wakeTracking();
+        }
+    }
+
+    void setFinishing() {
+        setState(STATE_FINISHING);
+    }
+
+    int getState() {
+        return mState;
+    }
+
+    // tracking and snap in one frame callback, as the replay drives them
+    boolean doFrame(long frameTimeMillis) {
+        boolean hasNext = false;
+        if (mIsTrackingAwake) {
+            hasNext = stepTracking(frameTimeMillis);
+        }
+        if (mSnapAnimator.isRunning()) {
+            hasNext |= stepSnap(frameTimeMillis);
+        }
+        return hasNext;
+    }
+
+    boolean isIdle() {
+        return !mIsTrackingAwake && !mSnapAnimator.isRunning();
+    }
+
+    void setOverMargin(int margin) {
+        mOverMargin = margin;
+    }
+
+    void setOnRight(boolean isOnRight) {
+        mIsOnRight = isOnRight;
+    }
+
+    boolean isOnRight() {
+        return mIsOnRight;
+    }
+
+    void setTrackingCurve(EasingCurve curve) {
+        mTrackingAnimator.setCurve(curve != null ? curve : EasingCurves.TRACKING);
+    }
+
+    void setEdgeSnapCurve(EasingCurve curve) {
+        mEdgeSnapCurve = curve;
+    }
+
+    void setSnapAnchors(SnapAnchors snapAnchors) {
+        mSnapAnchors = snapAnchors;
+        mIsSnapAnchorIndexDirty = true;
+    }
+
+    SnapAnchors getSnapAnchors() {
+        return mSnapAnchors;
+    }
+
+    void setDragMode(int dragMode) {
+        mDragMode = dragMode;
+        if (dragMode == DRAG_MODE_LOW_LATENCY && mTouchPredictor == null) {
+            mTouchPredictor = new TouchPredictor(PREDICTION_MAX_LEAD_MILLIS, PREDICTION_MAX_DISTANCE_DP * mDensity);
+        }
+    }
+
+    int getDragMode() {
+        return mDragMode;
+    }
+
+    void setMetrics(FloatingViewMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    boolean isMoveAccept() {
+        return mIsMoveAccept;
+    }
+
+    int getX() {
+        return mX;
+    }
+
+    int getY() {
+        return mY;
+    }
+
+    int getXByTouch() {
+        return getXByScreen(mScreenTouchX);
+    }
+
+    int getYByTouch() {
+        return getYByScreen(mScreenTouchY);
+    }
+
+    private int getXByScreen(float screenX) {
+        return (int) (screenX - mLocalTouchX);
+    }
+
+    private int getYByScreen(float screenY) {
+        return (int) (mScreenHeight - (screenY - mLocalTouchY + mBubbleHeight));
+    }
+
+    int getMoveLimitLeft() {
+        return mMoveLimitLeft;
+    }
+
+    int getMoveLimitTop() {
+        return mMoveLimitTop;
+    }
+
+    int getMoveLimitRight() {
+        return mMoveLimitRight;
+    }
+
+    int getMoveLimitBottom() {
+        return mMoveLimitBottom;
+    }
+
+    float getDensity() {
+        return mDensity;
+    }
+
+    int getScreenWidth() {
+        return mScreenWidth;
+    }
+
+    int getScreenHeight() {
+        return mScreenHeight;
+    }
+
+    int getStatusBarHeight() {
+        return mStatusBarHeight;
+    }
+
+    int getBubbleWidth() {
+        return mBubbleWidth;
+    }
+
+    int getBubbleHeight() {
+        return mBubbleHeight;
+    }
+
+    int getOverMargin() {
+        return mOverMargin;
+    }
+}
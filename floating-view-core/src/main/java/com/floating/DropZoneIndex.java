@@ -0,0 +1,209 @@
+package com.floating;
+
+class DropZoneIndex {
+
+    static final int NO_ZONE = -1;
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final int mCellSize;
+
+    private int mColumns;
+
+    private int mRows;
+
+    private int[][] mCells;
+
+    private int[] mCellCounts;
+
+    private int mZoneCount;
+
+    private int[] mLefts;
+
+    private int[] mTops;
+
+    private int[] mRights;
+
+    private int[] mBottoms;
+
+    private boolean[] mIsIndexed;
+
+    DropZoneIndex(int cellSize) {
+        mCellSize = Math.max(cellSize, 1);
+        mLefts = new int[INITIAL_CAPACITY];
+        mTops = new int[INITIAL_CAPACITY];
+        mRights = new int[INITIAL_CAPACITY];
+        mBottoms = new int[INITIAL_CAPACITY];
+        mIsIndexed = new boolean[INITIAL_CAPACITY];
+        reset(0, 0);
+    }
+
+    void reset(int width, int height) {
+        final int columns = Math.max((width + mCellSize - 1) / mCellSize, 1);
+        final int rows = Math.max((height + mCellSize - 1) / mCellSize, 1);
+        if (mCells == null || columns * rows != mCells.length) {
+            mCells = new int[columns * rows][];
+            mCellCounts = new int[columns * rows];
+        } else {
+            for (int i = 0; i < mCellCounts.length; i++) {
+                mCellCounts[i] = 0;
+            }
+        }
+        mColumns = columns;
+        mRows = rows;
+        mZoneCount = 0;
+    }
+
+    int getZoneCount() {
+        return mZoneCount;
+    }
+
+    int add(int left, int top, int right, int bottom) {
+        if (mZoneCount == mLefts.length) {
+            final int capacity = mZoneCount * 2;
+            mLefts = copyOf(mLefts, capacity);
+            mTops = copyOf(mTops, capacity);
+            mRights = copyOf(mRights, capacity);
+            mBottoms = copyOf(mBottoms, capacity);
+            final boolean[] isIndexed = new boolean[capacity];
+            System.arraycopy(mIsIndexed, 0, isIndexed, 0, mZoneCount);
+            mIsIndexed = isIndexed;
+        }
+        final int zone = mZoneCount++;
+        mIsIndexed[zone] = false;
+        update(zone, left, top, right, bottom);
+        return zone;
+    }
+
+    void update(int zone, int left, int top, int right, int bottom) {
+        if (mIsIndexed[zone]) {
+            if (mLefts[zone] == left && mTops[zone] == top && mRights[zone] == right && mBottoms[zone] == bottom) {
+                return;
+            }
+            removeFromCells(zone);
+        }
+        mLefts[zone] = left;
+        mTops[zone] = top;
+        mRights[zone] = right;
+        mBottoms[zone] = bottom;
+        mIsIndexed[zone] = left < right && top < bottom;
+        if (!mIsIndexed[zone]) {
+            return;
+        }
+        final int firstColumn = toColumn(left);
+        final int lastColumn = toColumn(right - 1);
+        final int firstRow = toRow(top);
+        final int lastRow = toRow(bottom - 1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                addToCell(row * mColumns + column, zone);
+            }
+        }
+    }
+
+    int findRect(int left, int top, int right, int bottom) {
+        int found = NO_ZONE;
+        final int firstColumn = toColumn(left);
+        final int lastColumn = toColumn(right - 1);
+        final int firstRow = toRow(top);
+        final int lastRow = toRow(bottom - 1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final int cell = row * mColumns + column;
+                final int[] zones = mCells[cell];
+                final int count = mCellCounts[cell];
+                for (int i = 0; i < count; i++) {
+                    final int zone = zones[i];
+                    if ((found == NO_ZONE || zone < found) && intersectsRect(zone, left, top, right, bottom)) {
+                        found = zone;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    int findCircle(float centerX, float centerY, float radius) {
+        int found = NO_ZONE;
+        final int firstColumn = toColumn((int) (centerX - radius));
+        final int lastColumn = toColumn((int) (centerX + radius));
+        final int firstRow = toRow((int) (centerY - radius));
+        final int lastRow = toRow((int) (centerY + radius));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final int cell = row * mColumns + column;
+                final int[] zones = mCells[cell];
+                final int count = mCellCounts[cell];
+                for (int i = 0; i < count; i++) {
+                    final int zone = zones[i];
+                    if ((found == NO_ZONE || zone < found) && intersectsCircle(zone, centerX, centerY, radius)) {
+                        found = zone;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean intersectsRect(int zone, int left, int top, int right, int bottom) {
+        return left < mRights[zone] && mLefts[zone] < right && top < mBottoms[zone] && mTops[zone] < bottom;
+    }
+
+    private boolean intersectsCircle(int zone, float centerX, float centerY, float radius) {
+        final float nearestX = Math.min(Math.max(centerX, mLefts[zone]), mRights[zone]);
+        final float nearestY = Math.min(Math.max(centerY, mTops[zone]), mBottoms[zone]);
+        final float dx = centerX - nearestX;
+        final float dy = centerY - nearestY;
+        return dx * dx + dy * dy < radius * radius;
+    }
+
+    private int toColumn(int x) {
+        return Math.min(Math.max(x / mCellSize, 0), mColumns - 1);
+    }
+
+    private int toRow(int y) {
+        return Math.min(Math.max(y / mCellSize, 0), mRows - 1);
+    }
+
+    private void addToCell(int cell, int zone) {
+        int[] zones = mCells[cell];
+        final int count = mCellCounts[cell];
+        if (zones == null) {
+            zones = new int[INITIAL_CAPACITY];
+            mCells[cell] = zones;
+        } else if (count == zones.length) {
+            zones = copyOf(zones, count * 2);
+            mCells[cell] = zones;
+        }
+        zones[count] = zone;
+        mCellCounts[cell] = count + 1;
+    }
+
+    private void removeFromCells(int zone) {
+        final int firstColumn = toColumn(mLefts[zone]);
+        final int lastColumn = toColumn(mRights[zone] - 1);
+        final int firstRow = toRow(mTops[zone]);
+        final int lastRow = toRow(mBottoms[zone] - 1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final int cell = row * mColumns + column;
+                final int[] zones = mCells[cell];
+                final int count = mCellCounts[cell];
+                for (int i = 0; i < count; i++) {
+                    if (zones[i] == zone) {
+                        System.arraycopy(zones, i + 1, zones, i, count - i - 1);
+                        mCellCounts[cell] = count - 1;
+                        break;
+                    }
+                }
+            }
+        }
+        mIsIndexed[zone] = false;
+    }
+
+    private static int[] copyOf(int[] source, int capacity) {
+        final int[] copy = new int[capacity];
+        System.arraycopy(source, 0, copy, 0, Math.min(source.length, capacity));
+        return copy;
+    }
+}
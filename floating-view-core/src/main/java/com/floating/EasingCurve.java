@@ -0,0 +1,7 @@
+package com.floating;
+
+public interface EasingCurve {
+
+    float getInterpolation(float input);
+
+}
@@ -0,0 +1,37 @@
+package com.floating;
+
+public final class EasingCurves {
+
+    static final int TABLE_SEGMENTS = 512;
+
+    public static final EasingCurve TRACKING = new LookupTableCurve(new EasingCurve() {
+        @Override
+        public float getInterpolation(float input) {
+            return calcTrackingPosition(input);
+        }
+    }, TABLE_SEGMENTS);
+
+    private EasingCurves() {
+    }
+
+    public static EasingCurve overshoot(float tension) {
+        return new OvershootCurve(tension);
+    }
+
+    public static EasingCurve precompute(EasingCurve curve, int segments) {
+        return new LookupTableCurve(curve, segments);
+    }
+
+    static float calcTrackingPosition(float timeRate) {
+        final float position;
+        // y=0.55sin(8.0564x-π/2)+0.55
+        if (timeRate <= 0.4) {
+            position = (float) (0.55 * Math.sin(8.0564 * timeRate - Math.PI / 2) + 0.55);
+        }
+        // y=4(0.417x-0.341)^2-4(0.417-0.341)^2+1
+        else {
+            position = (float) (4 * Math.pow(0.417 * timeRate - 0.341, 2) - 4 * Math.pow(0.417 - 0.341, 2) + 1);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,44 @@
+package com.floating;
+
+final class FloatingMath {
+
+    // shared by the view and the headless drag model so replays match the device
+    static final float MOVE_THRESHOLD_DP = 8.0f;
+
+    static final long MOVE_TO_EDGE_DURATION = 450L;
+
+    static final float MOVE_TO_EDGE_OVERSHOOT_TENSION = 1.25f;
+
+    private static final float TENSION_PER_VELOCITY = 2.0f / 3000;
+
+    private FloatingMath() {
+    }
+
+    static int clamp(int value, int min, int max) {
+        return Math.min(Math.max(min, value), max);
+    }
+
+    static float clamp(float value, float min, float max) {
+        return Math.min(Math.max(min, value), max);
+    }
+
+    // faster flings overshoot further
+    static float calcEdgeSnapTension(float velocity, float minTension, float maxTension) {
+        return clamp(Math.abs(velocity) * TENSION_PER_VELOCITY, minTension, maxTension);
+    }
+
+    static float calcTrackingPosition(float startPosition, float targetPosition, float basePosition) {
+        return startPosition + (targetPosition - startPosition) * basePosition;
+    }
+
+    // the trash follows the bubble horizontally inside its limit
+    static float calcTrashPositionX(float trashViewX, float targetX, float targetWidth, float screenWidth, int limitLeft, int limitWidth) {
+        return trashViewX + (targetX + targetWidth) / (screenWidth + targetWidth) * limitWidth + limitLeft;
+    }
+
+    // and rises towards a bubble in the lower half of the screen
+    static float calcTrashStickyY(float targetY, float targetHeight, float screenHeight, float stickyYRange, int limitHeight) {
+        final float targetPositionYRate = Math.min(2 * (targetY + targetHeight) / (screenHeight + targetHeight), 1.0f);
+        return stickyYRange * targetPositionYRate + limitHeight - stickyYRange;
+    }
+}
@@ -0,0 +1,160 @@
+package com.floating;
+
+public final class FloatingViewMetrics {
+
+    public static final int FRAME_GAP_BUCKET_COUNT = 5;
+
+    // a gap falls into the first bucket whose bound in frames it doesn't exceed
+    private static final int[] FRAME_GAP_BUCKET_FRAMES = {1, 2, 3, 6, Integer.MAX_VALUE};
+
+    private int mRenderedFrameCount;
+
+    private int mExpectedFrameCount;
+
+    private long mLongestFrameGapMillis;
+
+    private final int[] mFrameGapCounts;
+
+    private int mLayoutUpdateCount;
+
+    private long mLayoutUpdateNanos;
+
+    private long mTouchToMoveMillis;
+
+    private int mDragLatencyCount;
+
+    private float mDragLatencySumMillis;
+
+    private float mMaxDragLatencyMillis;
+
+    private long mCloseViewOpenMillis;
+
+    private long mCloseViewCloseMillis;
+
+    FloatingViewMetrics() {
+        mFrameGapCounts = new int[FRAME_GAP_BUCKET_COUNT];
+        reset();
+    }
+
+    void reset() {
+        mRenderedFrameCount = 0;
+        mExpectedFrameCount = 0;
+        mLongestFrameGapMillis = 0;
+        for (int i = 0; i < FRAME_GAP_BUCKET_COUNT; i++) {
+            mFrameGapCounts[i] = 0;
+        }
+        mLayoutUpdateCount = 0;
+        mLayoutUpdateNanos = 0;
+        mTouchToMoveMillis = -1;
+        mDragLatencyCount = 0;
+        mDragLatencySumMillis = 0;
+        mMaxDragLatencyMillis = 0;
+        mCloseViewOpenMillis = -1;
+        mCloseViewCloseMillis = -1;
+    }
+
+    boolean isEmpty() {
+        return mRenderedFrameCount == 0 && mLayoutUpdateCount == 0 && mCloseViewCloseMillis < 0;
+    }
+
+    void recordFrame(long frameGapMillis, float framePeriodMillis) {
+        mRenderedFrameCount++;
+        if (frameGapMillis < 0) {
+            // first frame of a run, nothing was due before it
+            mExpectedFrameCount++;
+            return;
+        }
+        final int frames = Math.max((int) (frameGapMillis / framePeriodMillis + 0.5f), 1);
+        mExpectedFrameCount += frames;
+        mLongestFrameGapMillis = Math.max(mLongestFrameGapMillis, frameGapMillis);
+        for (int i = 0; i < FRAME_GAP_BUCKET_COUNT; i++) {
+            if (frames <= FRAME_GAP_BUCKET_FRAMES[i]) {
+                mFrameGapCounts[i]++;
+                break;
+            }
+        }
+    }
+
+    void recordLayoutUpdate(long durationNanos) {
+        mLayoutUpdateCount++;
+        mLayoutUpdateNanos += durationNanos;
+    }
+
+    void recordTouchToMove(long latencyMillis) {
+        if (mTouchToMoveMillis < 0) {
+            mTouchToMoveMillis = latencyMillis;
+        }
+    }
+
+    void recordDragLatency(float latencyMillis) {
+        mDragLatencySumMillis += latencyMillis;
+        mMaxDragLatencyMillis = mDragLatencyCount == 0 ? latencyMillis : Math.max(mMaxDragLatencyMillis, latencyMillis);
+        mDragLatencyCount++;
+    }
+
+    void recordCloseViewOpen(long durationMillis) {
+        mCloseViewOpenMillis = durationMillis;
+    }
+
+    void recordCloseViewClose(long durationMillis) {
+        mCloseViewCloseMillis = durationMillis;
+    }
+
+    public int getRenderedFrameCount() {
+        return mRenderedFrameCount;
+    }
+
+    public int getExpectedFrameCount() {
+        return mExpectedFrameCount;
+    }
+
+    public long getLongestFrameGapMillis() {
+        return mLongestFrameGapMillis;
+    }
+
+    /**
+     * Frame gaps of 1, 2, 3, 4-6 and 7 or more frames for buckets 0 to 4.
+     */
+    public int getFrameGapCount(int bucket) {
+        return mFrameGapCounts[bucket];
+    }
+
+    public int getLayoutUpdateCount() {
+        return mLayoutUpdateCount;
+    }
+
+    public long getLayoutUpdateNanos() {
+        return mLayoutUpdateNanos;
+    }
+
+    // -1 if the gesture never moved
+    public long getTouchToMoveMillis() {
+        return mTouchToMoveMillis;
+    }
+
+    public int getDragLatencyCount() {
+        return mDragLatencyCount;
+    }
+
+    /**
+     * Age of the finger position behind each window update of the drag, less what prediction made up for.
+     * Negative when the bubble ran ahead of the finger.
+     */
+    public float getMeanDragLatencyMillis() {
+        return mDragLatencyCount > 0 ? mDragLatencySumMillis / mDragLatencyCount : 0;
+    }
+
+    public float getMaxDragLatencyMillis() {
+        return mMaxDragLatencyMillis;
+    }
+
+    // -1 if the trash didn't finish opening
+    public long getCloseViewOpenMillis() {
+        return mCloseViewOpenMillis;
+    }
+
+    // -1 if the trash didn't close
+    public long getCloseViewCloseMillis() {
+        return mCloseViewCloseMillis;
+    }
+}
@@ -0,0 +1,10 @@
+package com.floating;
+
+public interface FloatingViewMetricsListener {
+
+    // from touch down to release, the metrics object is reused and only valid during the call
+    void onGestureMetrics(FloatingViewMetrics metrics);
+
+    // from release (or the first animated frame) until every animation has settled
+    void onAnimationMetrics(FloatingViewMetrics metrics);
+}
@@ -0,0 +1,166 @@
+package com.floating;
+
+class GestureClassifier {
+
+    static final int GESTURE_NONE = 0;
+
+    static final int GESTURE_TAP = 1;
+
+    static final int GESTURE_DOUBLE_TAP = 2;
+
+    static final int GESTURE_LONG_PRESS = 3;
+
+    static final int GESTURE_FLING = 4;
+
+    static final int GESTURE_FLING_TO_DISMISS = 5;
+
+    private static final int STATE_IDLE = 0;
+
+    private static final int STATE_PRESSED = 1;
+
+    // a tap is waiting to see whether a second one follows
+    private static final int STATE_TAPPED = 2;
+
+    private static final int STATE_SECOND_PRESSED = 3;
+
+    private static final int STATE_MOVING = 4;
+
+    private static final int STATE_LONG_PRESSED = 5;
+
+    private final float mTouchSlop;
+
+    private final long mLongPressTimeout;
+
+    private final long mDoubleTapTimeout;
+
+    private final float mMinFlingVelocity;
+
+    private final float mDismissVelocity;
+
+    private int mState;
+
+    private long mDownTime;
+
+    private long mUpTime;
+
+    private float mDownX;
+
+    private float mDownY;
+
+    private float mFirstDownX;
+
+    private float mFirstDownY;
+
+    private float mVelocityX;
+
+    private float mVelocityY;
+
+    // velocities in px/s, dismiss means a fling down towards the trash
+    GestureClassifier(float touchSlop, long longPressTimeout, long doubleTapTimeout, float minFlingVelocity, float dismissVelocity) {
+        mTouchSlop = touchSlop;
+        mLongPressTimeout = longPressTimeout;
+        mDoubleTapTimeout = doubleTapTimeout;
+        mMinFlingVelocity = minFlingVelocity;
+        mDismissVelocity = dismissVelocity;
+        mState = STATE_IDLE;
+    }
+
+    int onDown(long eventTime, float x, float y) {
+        int gesture = GESTURE_NONE;
+        if (mState == STATE_TAPPED && eventTime - mUpTime < mDoubleTapTimeout && isInSlop(x, y, mFirstDownX, mFirstDownY, 2)) {
+            mState = STATE_SECOND_PRESSED;
+        } else {
+            // the pending tap timed out before anyone asked
+            if (mState == STATE_TAPPED) {
+                gesture = GESTURE_TAP;
+            }
+            mState = STATE_PRESSED;
+            mFirstDownX = x;
+            mFirstDownY = y;
+        }
+        mDownTime = eventTime;
+        mDownX = x;
+        mDownY = y;
+        return gesture;
+    }
+
+    int onMove(long eventTime, float x, float y) {
+        final int gesture = poll(eventTime);
+        if ((mState == STATE_PRESSED || mState == STATE_SECOND_PRESSED || mState == STATE_LONG_PRESSED) && !isInSlop(x, y, mDownX, mDownY, 1)) {
+            mState = STATE_MOVING;
+        }
+        return gesture;
+    }
+
+    int onUp(long eventTime, float velocityX, float velocityY) {
+        final int gesture = poll(eventTime);
+        if (gesture != GESTURE_NONE) {
+            mState = STATE_IDLE;
+            return gesture;
+        }
+        mVelocityX = velocityX;
+        mVelocityY = velocityY;
+        switch (mState) {
+            case STATE_PRESSED:
+                mState = STATE_TAPPED;
+                mUpTime = eventTime;
+                return GESTURE_NONE;
+            case STATE_SECOND_PRESSED:
+                mState = STATE_IDLE;
+                return GESTURE_DOUBLE_TAP;
+            case STATE_MOVING:
+                mState = STATE_IDLE;
+                if (velocityY >= mDismissVelocity && velocityY > Math.abs(velocityX)) {
+                    return GESTURE_FLING_TO_DISMISS;
+                }
+                if (velocityX * velocityX + velocityY * velocityY >= mMinFlingVelocity * mMinFlingVelocity) {
+                    return GESTURE_FLING;
+                }
+                return GESTURE_NONE;
+            default:
+                mState = STATE_IDLE;
+                return GESTURE_NONE;
+        }
+    }
+
+    void onCancel() {
+        mState = STATE_IDLE;
+    }
+
+    // fires the gestures that are only known once time has passed
+    int poll(long time) {
+        if ((mState == STATE_PRESSED || mState == STATE_SECOND_PRESSED) && time - mDownTime >= mLongPressTimeout) {
+            mState = STATE_LONG_PRESSED;
+            return GESTURE_LONG_PRESS;
+        }
+        if (mState == STATE_TAPPED && time - mUpTime >= mDoubleTapTimeout) {
+            mState = STATE_IDLE;
+            return GESTURE_TAP;
+        }
+        return GESTURE_NONE;
+    }
+
+    // when poll has to be called next, -1 if nothing is pending
+    long getNextDeadline() {
+        if (mState == STATE_PRESSED || mState == STATE_SECOND_PRESSED) {
+            return mDownTime + mLongPressTimeout;
+        }
+        if (mState == STATE_TAPPED) {
+            return mUpTime + mDoubleTapTimeout;
+        }
+        return -1;
+    }
+
+    float getVelocityX() {
+        return mVelocityX;
+    }
+
+    float getVelocityY() {
+        return mVelocityY;
+    }
+
+    private boolean isInSlop(float x, float y, float originX, float originY, int slops) {
+        final float slop = mTouchSlop * slops;
+        return Math.abs(x - originX) < slop && Math.abs(y - originY) < slop;
+    }
+}
@@ -0,0 +1,30 @@
+package com.floating;
+
+class LookupTableCurve implements EasingCurve {
+
+    private final float[] mTable;
+
+    private final int mSegments;
+
+    LookupTableCurve(EasingCurve source, int segments) {
+        mSegments = segments;
+        mTable = new float[segments + 1];
+        for (int i = 0; i <= segments; i++) {
+            mTable[i] = source.getInterpolation(i / (float) segments);
+        }
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        if (input <= 0.0f) {
+            return mTable[0];
+        }
+        if (input >= 1.0f) {
+            return mTable[mSegments];
+        }
+        final float position = input * mSegments;
+        final int index = (int) position;
+        final float fraction = position - index;
+        return mTable[index] + (mTable[index + 1] - mTable[index]) * fraction;
+    }
+}
@@ -0,0 +1,34 @@
+package com.floating;
+
+class ManualClock implements Clock {
+
+    private long mUptimeMillis;
+
+    private long mNanoTime;
+
+    ManualClock(long uptimeMillis) {
+        setUptimeMillis(uptimeMillis);
+    }
+
+    // time never goes backwards
+    void setUptimeMillis(long uptimeMillis) {
+        if (uptimeMillis > mUptimeMillis) {
+            mUptimeMillis = uptimeMillis;
+            mNanoTime = uptimeMillis * 1000000L;
+        }
+    }
+
+    void advanceMillis(long millis) {
+        setUptimeMillis(mUptimeMillis + millis);
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return mUptimeMillis;
+    }
+
+    @Override
+    public long nanoTime() {
+        return mNanoTime;
+    }
+}
@@ -0,0 +1,62 @@
+package com.floating;
+
+final class MemoryTrimPolicy {
+
+    static final int TRIM_LEVEL_NONE = 0;
+
+    // the reuse pool of the image cache, reported as TRIM_RELEASED_BITMAP_POOL
+    static final int TRIM_LEVEL_CACHES = 1;
+
+    // plus decoded images and the trash icons of a detached CloseView, TRIM_RELEASED_IMAGE_CACHE and TRIM_RELEASED_TRASH_ICONS
+    static final int TRIM_LEVEL_IMAGES = 2;
+
+    // plus the windows of hidden bubbles, TRIM_RELEASED_HIDDEN_WINDOWS
+    static final int TRIM_LEVEL_HIDDEN = 3;
+
+    static final int TRIM_LEVEL_COUNT = 4;
+
+    // ComponentCallbacks2 levels, the core module doesn't see android.jar
+    static final int TRIM_MEMORY_RUNNING_MODERATE = 5;
+
+    static final int TRIM_MEMORY_RUNNING_LOW = 10;
+
+    static final int TRIM_MEMORY_RUNNING_CRITICAL = 15;
+
+    static final int TRIM_MEMORY_UI_HIDDEN = 20;
+
+    static final int TRIM_MEMORY_BACKGROUND = 40;
+
+    static final int TRIM_MEMORY_MODERATE = 60;
+
+    static final int TRIM_MEMORY_COMPLETE = 80;
+
+    private MemoryTrimPolicy() {
+    }
+
+    // both the running and the cached ranges escalate in three steps
+    static int toTrimLevel(int level) {
+        if (level >= TRIM_MEMORY_COMPLETE) {
+            return TRIM_LEVEL_HIDDEN;
+        }
+        if (level >= TRIM_MEMORY_MODERATE) {
+            return TRIM_LEVEL_IMAGES;
+        }
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            return TRIM_LEVEL_CACHES;
+        }
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // only the activity UI went away, the bubbles are still on screen
+            return TRIM_LEVEL_NONE;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            return TRIM_LEVEL_HIDDEN;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            return TRIM_LEVEL_IMAGES;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            return TRIM_LEVEL_CACHES;
+        }
+        return TRIM_LEVEL_NONE;
+    }
+}
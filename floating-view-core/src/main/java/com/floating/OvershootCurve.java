@@ -0,0 +1,40 @@
+package com.floating;
+
+class OvershootCurve implements EasingCurve {
+
+    // y=(T+1)(x-1)^3+T(x-1)^2+1 = ((x-1)^3+1) + T((x-1)^3+(x-1)^2)
+    private static final EasingCurve BASE = new LookupTableCurve(new EasingCurve() {
+        @Override
+        public float getInterpolation(float input) {
+            final float t = input - 1.0f;
+            return t * t * t + 1.0f;
+        }
+    }, EasingCurves.TABLE_SEGMENTS);
+
+    private static final EasingCurve TENSION = new LookupTableCurve(new EasingCurve() {
+        @Override
+        public float getInterpolation(float input) {
+            final float t = input - 1.0f;
+            return t * t * t + t * t;
+        }
+    }, EasingCurves.TABLE_SEGMENTS);
+
+    private float mTension;
+
+    OvershootCurve(float tension) {
+        mTension = tension;
+    }
+
+    void setTension(float tension) {
+        mTension = tension;
+    }
+
+    float getTension() {
+        return mTension;
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        return BASE.getInterpolation(input) + mTension * TENSION.getInterpolation(input);
+    }
+}
@@ -0,0 +1,139 @@
+package com.floating;
+
+class SnapAnchorIndex {
+
+    static final int NO_ANCHOR = -1;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] mXs;
+
+    private int[] mYs;
+
+    private int mCount;
+
+    private int mNearest;
+
+    private float mNearestDistance;
+
+    SnapAnchorIndex() {
+        mXs = new int[INITIAL_CAPACITY];
+        mYs = new int[INITIAL_CAPACITY];
+    }
+
+    void clear() {
+        mCount = 0;
+    }
+
+    void add(int x, int y) {
+        if (mCount == mXs.length) {
+            final int[] xs = new int[mCount * 2];
+            final int[] ys = new int[mCount * 2];
+            System.arraycopy(mXs, 0, xs, 0, mCount);
+            System.arraycopy(mYs, 0, ys, 0, mCount);
+            mXs = xs;
+            mYs = ys;
+        }
+        mXs[mCount] = x;
+        mYs[mCount] = y;
+        mCount++;
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    int getX(int anchor) {
+        return mXs[anchor];
+    }
+
+    int getY(int anchor) {
+        return mYs[anchor];
+    }
+
+    // arranges the anchors as an implicit 2-d tree, the median of each range is its node
+    void build() {
+        build(0, mCount, true);
+    }
+
+    int findNearest(float x, float y) {
+        mNearest = NO_ANCHOR;
+        mNearestDistance = Float.MAX_VALUE;
+        search(0, mCount, true, x, y);
+        return mNearest;
+    }
+
+    private void build(int from, int to, boolean isSplitX) {
+        if (to - from <= 1) {
+            return;
+        }
+        final int median = (from + to) >>> 1;
+        select(from, to - 1, median, isSplitX ? mXs : mYs);
+        build(from, median, !isSplitX);
+        build(median + 1, to, !isSplitX);
+    }
+
+    private void search(int from, int to, boolean isSplitX, float x, float y) {
+        if (from >= to) {
+            return;
+        }
+        final int median = (from + to) >>> 1;
+        final float dx = x - mXs[median];
+        final float dy = y - mYs[median];
+        final float distance = dx * dx + dy * dy;
+        if (distance < mNearestDistance) {
+            mNearestDistance = distance;
+            mNearest = median;
+        }
+        final float splitDistance = isSplitX ? dx : dy;
+        if (splitDistance < 0) {
+            search(from, median, !isSplitX, x, y);
+            if (splitDistance * splitDistance < mNearestDistance) {
+                search(median + 1, to, !isSplitX, x, y);
+            }
+        } else {
+            search(median + 1, to, !isSplitX, x, y);
+            if (splitDistance * splitDistance < mNearestDistance) {
+                search(from, median, !isSplitX, x, y);
+            }
+        }
+    }
+
+    // quickselect on keys[left..right], keeps mXs and mYs paired
+    private void select(int left, int right, int k, int[] keys) {
+        while (right > left) {
+            final int pivot = keys[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        final int x = mXs[i];
+        mXs[i] = mXs[j];
+        mXs[j] = x;
+        final int y = mYs[i];
+        mYs[i] = mYs[j];
+        mYs[j] = y;
+    }
+}
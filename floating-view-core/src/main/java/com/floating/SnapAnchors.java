@@ -0,0 +1,93 @@
+package com.floating;
+
+public class SnapAnchors {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private boolean mHasCorners;
+
+    private int mEdgeSlotInterval;
+
+    private float[] mPoints;
+
+    private int mPointCount;
+
+    public SnapAnchors() {
+        mPoints = new float[INITIAL_CAPACITY * 2];
+    }
+
+    public SnapAnchors addCorners() {
+        mHasCorners = true;
+        return this;
+    }
+
+    /**
+     * Slots on the left and right edges, every intervalPx from the top.
+     */
+    public SnapAnchors addEdgeSlots(int intervalPx) {
+        mEdgeSlotInterval = intervalPx;
+        return this;
+    }
+
+    /**
+     * A point given as a fraction of the area a bubble can rest in, (0, 0) being its top left.
+     */
+    public SnapAnchors addPoint(float fractionX, float fractionY) {
+        if (mPointCount * 2 == mPoints.length) {
+            final float[] points = new float[mPoints.length * 2];
+            System.arraycopy(mPoints, 0, points, 0, mPoints.length);
+            mPoints = points;
+        }
+        mPoints[mPointCount * 2] = fractionX;
+        mPoints[mPointCount * 2 + 1] = fractionY;
+        mPointCount++;
+        return this;
+    }
+
+    boolean hasCorners() {
+        return mHasCorners;
+    }
+
+    int getEdgeSlotInterval() {
+        return mEdgeSlotInterval;
+    }
+
+    int getPointCount() {
+        return mPointCount;
+    }
+
+    float getPointFractionX(int index) {
+        return mPoints[index * 2];
+    }
+
+    float getPointFractionY(int index) {
+        return mPoints[index * 2 + 1];
+    }
+
+    // the limits are in window coordinates, y grows from the bottom of the screen
+    void resolve(int minX, int minY, int maxX, int maxY, SnapAnchorIndex outIndex) {
+        outIndex.clear();
+        final int left = minX;
+        final int right = maxX;
+        final int bottom = minY;
+        final int top = maxY;
+        if (mHasCorners) {
+            outIndex.add(left, top);
+            outIndex.add(right, top);
+            outIndex.add(left, bottom);
+            outIndex.add(right, bottom);
+        }
+        if (mEdgeSlotInterval > 0) {
+            for (int y = top; y >= bottom; y -= mEdgeSlotInterval) {
+                outIndex.add(left, y);
+                outIndex.add(right, y);
+            }
+        }
+        for (int i = 0; i < mPointCount; i++) {
+            final int x = (int) (left + (right - left) * mPoints[i * 2]);
+            final int y = (int) (top - (top - bottom) * mPoints[i * 2 + 1]);
+            outIndex.add(x, y);
+        }
+        outIndex.build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.floating;
+
+class SnapAnimator {
+
+    private int mStartX;
+
+    private int mStartY;
+
+    private int mGoalX;
+
+    private int mGoalY;
+
+    private int mCurrentX;
+
+    private int mCurrentY;
+
+    private long mDuration;
+
+    private long mStartTime;
+
+    private boolean mIsFirstFrame;
+
+    private boolean mIsRunning;
+
+    private EasingCurve mCurve;
+
+    void start(int startX, int startY, int goalX, int goalY, long duration, EasingCurve curve) {
+        mStartX = startX;
+        mStartY = startY;
+        mGoalX = goalX;
+        mGoalY = goalY;
+        mCurrentX = startX;
+        mCurrentY = startY;
+        mDuration = duration;
+        mCurve = curve;
+        mIsFirstFrame = true;
+        mIsRunning = true;
+    }
+
+    // return true while the snap has frames left
+    boolean step(long frameTimeMillis) {
+        if (!mIsRunning) {
+            return false;
+        }
+        if (mIsFirstFrame) {
+            mStartTime = frameTimeMillis;
+            mIsFirstFrame = false;
+        }
+        final float fraction = Math.min((frameTimeMillis - mStartTime) / (float) mDuration, 1.0f);
+        final float position = mCurve.getInterpolation(fraction);
+        mCurrentX = (int) (mStartX + (mGoalX - mStartX) * position);
+        mCurrentY = (int) (mStartY + (mGoalY - mStartY) * position);
+        if (fraction >= 1.0f) {
+            mCurrentX = mGoalX;
+            mCurrentY = mGoalY;
+            mIsRunning = false;
+        }
+        return mIsRunning;
+    }
+
+    void cancel() {
+        mIsRunning = false;
+    }
+
+    boolean isRunning() {
+        return mIsRunning;
+    }
+
+    int getCurrentX() {
+        return mCurrentX;
+    }
+
+    int getCurrentY() {
+        return mCurrentY;
+    }
+
+    int getGoalX() {
+        return mGoalX;
+    }
+
+    int getGoalY() {
+        return mGoalY;
+    }
+}
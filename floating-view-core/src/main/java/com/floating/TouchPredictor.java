@@ -0,0 +1,114 @@
+package com.floating;
+
+class TouchPredictor {
+
+    private static final int SAMPLE_COUNT = 8;
+
+    // older samples say nothing about where the finger is heading now
+    private static final long SAMPLE_WINDOW_MILLIS = 50L;
+
+    private final long[] mTimes;
+
+    private final float[] mXs;
+
+    private final float[] mYs;
+
+    private final long mMaxLeadMillis;
+
+    private final float mMaxDistance;
+
+    private int mCount;
+
+    private int mNewest;
+
+    private float mPredictedX;
+
+    private float mPredictedY;
+
+    private float mLeadMillis;
+
+    TouchPredictor(long maxLeadMillis, float maxDistance) {
+        mTimes = new long[SAMPLE_COUNT];
+        mXs = new float[SAMPLE_COUNT];
+        mYs = new float[SAMPLE_COUNT];
+        mMaxLeadMillis = maxLeadMillis;
+        mMaxDistance = maxDistance;
+    }
+
+    void reset() {
+        mCount = 0;
+        mLeadMillis = 0;
+    }
+
+    void addSample(long eventTime, float x, float y) {
+        if (mCount > 0 && eventTime < mTimes[mNewest]) {
+            return;
+        }
+        mNewest = (mNewest + 1) % SAMPLE_COUNT;
+        mTimes[mNewest] = eventTime;
+        mXs[mNewest] = x;
+        mYs[mNewest] = y;
+        mCount = Math.min(mCount + 1, SAMPLE_COUNT);
+    }
+
+    // extrapolate the newest sample to targetTime, never further than the limits
+    void predict(long targetTime) {
+        if (mCount == 0) {
+            return;
+        }
+        final long newestTime = mTimes[mNewest];
+        final float newestX = mXs[mNewest];
+        final float newestY = mYs[mNewest];
+        mPredictedX = newestX;
+        mPredictedY = newestY;
+        mLeadMillis = 0;
+        final long lead = Math.min(targetTime - newestTime, mMaxLeadMillis);
+        if (lead <= 0 || targetTime - newestTime > SAMPLE_WINDOW_MILLIS) {
+            // a finger at rest stops sending moves
+            return;
+        }
+
+        // least squares slope of a line through the newest sample
+        float sumTimeX = 0;
+        float sumTimeY = 0;
+        float sumTimeTime = 0;
+        for (int i = 1; i < mCount; i++) {
+            final int index = (mNewest - i + SAMPLE_COUNT) % SAMPLE_COUNT;
+            final float dt = mTimes[index] - newestTime;
+            if (-dt > SAMPLE_WINDOW_MILLIS) {
+                break;
+            }
+            sumTimeX += dt * (mXs[index] - newestX);
+            sumTimeY += dt * (mYs[index] - newestY);
+            sumTimeTime += dt * dt;
+        }
+        if (sumTimeTime == 0) {
+            return;
+        }
+        float dx = sumTimeX / sumTimeTime * lead;
+        float dy = sumTimeY / sumTimeTime * lead;
+        float scale = 1.0f;
+        final float distance = (float) Math.hypot(dx, dy);
+        if (distance > mMaxDistance) {
+            scale = mMaxDistance / distance;
+            dx *= scale;
+            dy *= scale;
+        }
+        mPredictedX = newestX + dx;
+        mPredictedY = newestY + dy;
+        mLeadMillis = lead * scale;
+    }
+
+    float getPredictedX() {
+        return mPredictedX;
+    }
+
+    float getPredictedY() {
+        return mPredictedY;
+    }
+
+    // how far ahead of the newest sample the prediction reaches
+    float getLeadMillis() {
+        return mLeadMillis;
+    }
+}
@@ -0,0 +1,179 @@
+package com.floating;
+
+import java.io.IOException;
+
+// drives a DragModel the way FloatingView does, touches from the trace and frames from a virtual grid
+class TouchReplayEngine {
+
+    static final long DEFAULT_FRAME_MILLIS = 16L;
+
+    // a snap settles in well under this, it only guards against a model that never does
+    private static final int MAX_SETTLE_FRAMES = 1000;
+
+    private static final int INITIAL_HISTORY_CAPACITY = 8;
+
+    private final ManualClock mClock;
+
+    private final long mFrameIntervalMillis;
+
+    // stands in for the view's VelocityTracker, fed the same samples
+    private final VelocityEstimator mVelocityEstimator;
+
+    // the samples the next move carries in its history, raw and local pairs as the trace has them
+    private long[] mHistoryTimes;
+
+    private float[] mHistoryPoints;
+
+    private int mHistorySize;
+
+    private TouchListener mTouchListener;
+
+    private int mLastX;
+
+    private int mLastY;
+
+    private int mCommitCount;
+
+    TouchReplayEngine(ManualClock clock, long frameIntervalMillis) {
+        mClock = clock;
+        mFrameIntervalMillis = frameIntervalMillis;
+        mVelocityEstimator = new VelocityEstimator();
+        mHistoryTimes = new long[INITIAL_HISTORY_CAPACITY];
+        mHistoryPoints = new float[INITIAL_HISTORY_CAPACITY * 4];
+    }
+
+    // what the manager does on a touch of the bubble, e.g. setIntersecting over the trash icon
+    void setTouchListener(TouchListener listener) {
+        mTouchListener = listener;
+    }
+
+    // the screen, bubble, start position, drag mode and snap anchors the trace was recorded with
+    DragModel createDragModel(TouchTraceReader reader) {
+        final DragModel model = new DragModel(mClock, reader.getDensity(), reader.getScreenWidth(), reader.getScreenHeight());
+        model.setOverMargin(reader.getOverMargin());
+        model.layout(reader.getScreenWidth(), reader.getScreenHeight(), reader.getStatusBarHeight(), reader.getBubbleWidth(), reader.getBubbleHeight());
+        model.setPosition(reader.getStartX(), reader.getStartY());
+        model.setDragMode(reader.getDragMode());
+        model.setSnapAnchors(reader.getSnapAnchors());
+        return model;
+    }
+
+    // feed the trace through the model on a virtual frame grid, return the number of window commits
+    int replay(TouchTraceReader reader, DragModel model, WindowSink sink) throws IOException {
+        mLastX = model.getX();
+        mLastY = model.getY();
+        mCommitCount = 0;
+        mHistorySize = 0;
+        long nextFrameTime = -1;
+        while (reader.next()) {
+            // history arrives with the move, no frame runs in between
+            if (reader.getAction() == TouchTrace.ACTION_HISTORY) {
+                addHistory(reader);
+                continue;
+            }
+            final long eventTime = reader.getEventTime();
+            if (nextFrameTime < 0) {
+                nextFrameTime = eventTime + mFrameIntervalMillis;
+            }
+            while (nextFrameTime <= eventTime) {
+                doFrame(nextFrameTime, model, sink);
+                nextFrameTime += mFrameIntervalMillis;
+            }
+            mClock.setUptimeMillis(eventTime);
+            if (dispatchTouchEvent(reader, model) && mTouchListener != null) {
+                mTouchListener.onTouch(model, reader.getAction());
+            }
+            mHistorySize = 0;
+        }
+        if (nextFrameTime < 0) {
+            return 0;
+        }
+        for (int i = 0; i < MAX_SETTLE_FRAMES && !model.isIdle(); i++) {
+            doFrame(nextFrameTime, model, sink);
+            nextFrameTime += mFrameIntervalMillis;
+        }
+        return mCommitCount;
+    }
+
+    // return false where FloatingView consumes the event without passing it on
+    private boolean dispatchTouchEvent(TouchTraceReader reader, DragModel model) {
+        final int action = reader.getAction();
+        final float rawX = reader.getRawX();
+        final float rawY = reader.getRawY();
+        if (action == TouchTrace.ACTION_DOWN) {
+            model.onTouchDown(rawX, rawY, reader.getX(), reader.getY(), reader.getEventTime(), reader.getDownTime());
+            // posted by the view, it runs before the next frame
+            model.startTracking();
+            mVelocityEstimator.clear();
+            mVelocityEstimator.addSample(reader.getEventTime(), reader.getX(), reader.getY());
+            return true;
+        }
+        if (!model.isCurrentGesture(reader.getDownTime())) {
+            return false;
+        }
+        if (action == TouchTrace.ACTION_MOVE) {
+            if (model.getDragMode() == DragModel.DRAG_MODE_LOW_LATENCY) {
+                for (int i = 0; i < mHistorySize; i++) {
+                    model.addTouchSample(mHistoryTimes[i], mHistoryPoints[i * 4], mHistoryPoints[i * 4 + 1]);
+                }
+            }
+            if (!model.onTouchMove(rawX, rawY, reader.getEventTime())) {
+                return false;
+            }
+            // VelocityTracker.addMovement takes the history along with the move, in view coordinates
+            for (int i = 0; i < mHistorySize; i++) {
+                mVelocityEstimator.addSample(mHistoryTimes[i], mHistoryPoints[i * 4 + 2], mHistoryPoints[i * 4 + 3]);
+            }
+            mVelocityEstimator.addSample(reader.getEventTime(), reader.getX(), reader.getY());
+            return true;
+        }
+        if (action == TouchTrace.ACTION_UP || action == TouchTrace.ACTION_CANCEL) {
+            float velocityX = 0;
+            float velocityY = 0;
+            if (model.isMoveAccept()) {
+                mVelocityEstimator.addSample(reader.getEventTime(), reader.getX(), reader.getY());
+                mVelocityEstimator.computeVelocity();
+                velocityX = mVelocityEstimator.getVelocityX();
+                velocityY = mVelocityEstimator.getVelocityY();
+            }
+            model.onTouchUp(rawX, rawY, velocityX, velocityY);
+        }
+        return true;
+    }
+
+    private void addHistory(TouchTraceReader reader) {
+        if (mHistorySize == mHistoryTimes.length) {
+            final long[] times = new long[mHistoryTimes.length * 2];
+            System.arraycopy(mHistoryTimes, 0, times, 0, mHistorySize);
+            mHistoryTimes = times;
+            final float[] points = new float[mHistoryPoints.length * 2];
+            System.arraycopy(mHistoryPoints, 0, points, 0, mHistorySize * 4);
+            mHistoryPoints = points;
+        }
+        mHistoryTimes[mHistorySize] = reader.getEventTime();
+        mHistoryPoints[mHistorySize * 4] = reader.getRawX();
+        mHistoryPoints[mHistorySize * 4 + 1] = reader.getRawY();
+        mHistoryPoints[mHistorySize * 4 + 2] = reader.getX();
+        mHistoryPoints[mHistorySize * 4 + 3] = reader.getY();
+        mHistorySize++;
+    }
+
+    private void doFrame(long frameTimeMillis, DragModel model, WindowSink sink) {
+        mClock.setUptimeMillis(frameTimeMillis);
+        model.doFrame(frameTimeMillis);
+        // same as LayoutCommitter, unchanged positions never reach the window
+        final int x = model.getX();
+        final int y = model.getY();
+        if (x != mLastX || y != mLastY) {
+            mLastX = x;
+            mLastY = y;
+            mCommitCount++;
+            sink.onWindowLayout(frameTimeMillis, x, y);
+        }
+    }
+
+    interface TouchListener {
+
+        void onTouch(DragModel model, int action);
+    }
+}
@@ -0,0 +1,29 @@
+package com.floating;
+
+final class TouchTrace {
+
+    // "FVT" and the format version
+    static final int MAGIC = 0x46565403;
+
+    // screen width, height, density, status bar height, bubble width, height, over margin, start x, start y,
+    // drag mode and whether snap anchors follow, a header with anchors is longer by their fields
+    static final int HEADER_BYTES = 10 * 4 + 1;
+
+    // same values as MotionEvent
+    static final int ACTION_DOWN = 0;
+
+    static final int ACTION_UP = 1;
+
+    static final int ACTION_MOVE = 2;
+
+    static final int ACTION_CANCEL = 3;
+
+    // not a MotionEvent action, a sample the next move carries in its history
+    static final int ACTION_HISTORY = 0x7f;
+
+    // action, raw x, raw y, local x, local y, event time delta, event time - down time
+    static final int RECORD_BYTES = 1 + 4 + 4 + 4 + 4 + 4 + 4;
+
+    private TouchTrace() {
+    }
+}
@@ -0,0 +1,208 @@
+package com.floating;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+class TouchTraceReader {
+
+    private final DataInputStream mInput;
+
+    private boolean mHasHeader;
+
+    private int mScreenWidth;
+
+    private int mScreenHeight;
+
+    private float mDensity;
+
+    private int mStatusBarHeight;
+
+    private int mBubbleWidth;
+
+    private int mBubbleHeight;
+
+    private int mOverMargin;
+
+    private int mStartX;
+
+    private int mStartY;
+
+    private int mDragMode;
+
+    private SnapAnchors mSnapAnchors;
+
+    private boolean mHasBaseTime;
+
+    private int mAction;
+
+    private float mRawX;
+
+    private float mRawY;
+
+    private float mX;
+
+    private float mY;
+
+    private long mEventTime;
+
+    private long mDownTime;
+
+    TouchTraceReader(InputStream inputStream) throws IOException {
+        mInput = new DataInputStream(new BufferedInputStream(inputStream));
+        if (mInput.readInt() != TouchTrace.MAGIC) {
+            throw new IOException("Not a touch trace");
+        }
+        // a recording that saw no touch has no header either
+        mInput.mark(TouchTrace.HEADER_BYTES);
+        if (mInput.read() < 0) {
+            return;
+        }
+        mInput.reset();
+        mScreenWidth = mInput.readInt();
+        mScreenHeight = mInput.readInt();
+        mDensity = mInput.readFloat();
+        mStatusBarHeight = mInput.readInt();
+        mBubbleWidth = mInput.readInt();
+        mBubbleHeight = mInput.readInt();
+        mOverMargin = mInput.readInt();
+        mStartX = mInput.readInt();
+        mStartY = mInput.readInt();
+        mDragMode = mInput.readInt();
+        if (mInput.readBoolean()) {
+            mSnapAnchors = readSnapAnchors();
+        }
+        mHasHeader = true;
+    }
+
+    private SnapAnchors readSnapAnchors() throws IOException {
+        final SnapAnchors snapAnchors = new SnapAnchors();
+        if (mInput.readBoolean()) {
+            snapAnchors.addCorners();
+        }
+        final int edgeSlotInterval = mInput.readInt();
+        if (edgeSlotInterval > 0) {
+            snapAnchors.addEdgeSlots(edgeSlotInterval);
+        }
+        final int pointCount = mInput.readInt();
+        if (pointCount < 0) {
+            throw new IOException("Broken snap anchors");
+        }
+        for (int i = 0; i < pointCount; i++) {
+            final float fractionX = mInput.readFloat();
+            snapAnchors.addPoint(fractionX, mInput.readFloat());
+        }
+        return snapAnchors;
+    }
+
+    // return false once the trace is exhausted
+    boolean next() throws IOException {
+        if (!mHasHeader) {
+            return false;
+        }
+        if (!mHasBaseTime) {
+            mInput.mark(8);
+            if (mInput.read() < 0) {
+                return false;
+            }
+            mInput.reset();
+            mEventTime = mInput.readLong();
+            mHasBaseTime = true;
+        }
+        final int action = mInput.read();
+        if (action < 0) {
+            return false;
+        }
+        mAction = action;
+        mRawX = mInput.readFloat();
+        mRawY = mInput.readFloat();
+        mX = mInput.readFloat();
+        mY = mInput.readFloat();
+        mEventTime += mInput.readInt();
+        mDownTime = mEventTime - mInput.readInt();
+        return true;
+    }
+
+    boolean hasHeader() {
+        return mHasHeader;
+    }
+
+    int getScreenWidth() {
+        return mScreenWidth;
+    }
+
+    int getScreenHeight() {
+        return mScreenHeight;
+    }
+
+    float getDensity() {
+        return mDensity;
+    }
+
+    int getStatusBarHeight() {
+        return mStatusBarHeight;
+    }
+
+    int getBubbleWidth() {
+        return mBubbleWidth;
+    }
+
+    int getBubbleHeight() {
+        return mBubbleHeight;
+    }
+
+    int getOverMargin() {
+        return mOverMargin;
+    }
+
+    int getStartX() {
+        return mStartX;
+    }
+
+    int getStartY() {
+        return mStartY;
+    }
+
+    int getDragMode() {
+        return mDragMode;
+    }
+
+    // null when the bubble snapped to the side edges only
+    SnapAnchors getSnapAnchors() {
+        return mSnapAnchors;
+    }
+
+    int getAction() {
+        return mAction;
+    }
+
+    float getRawX() {
+        return mRawX;
+    }
+
+    float getRawY() {
+        return mRawY;
+    }
+
+    // the touch relative to the bubble, as MotionEvent.getX
+    float getX() {
+        return mX;
+    }
+
+    float getY() {
+        return mY;
+    }
+
+    long getEventTime() {
+        return mEventTime;
+    }
+
+    long getDownTime() {
+        return mDownTime;
+    }
+
+    void close() throws IOException {
+        mInput.close();
+    }
+}
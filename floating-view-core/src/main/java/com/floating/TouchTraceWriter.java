@@ -0,0 +1,87 @@
+package com.floating;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+class TouchTraceWriter {
+
+    private final DataOutputStream mOutput;
+
+    private boolean mHasHeader;
+
+    private boolean mHasBaseTime;
+
+    private long mLastEventTime;
+
+    private int mCount;
+
+    TouchTraceWriter(OutputStream outputStream) throws IOException {
+        mOutput = new DataOutputStream(new BufferedOutputStream(outputStream));
+        mOutput.writeInt(TouchTrace.MAGIC);
+    }
+
+    // the screen and bubble the drag ran on, where the bubble was and how it snaps, a replay starts from the same place
+    void writeHeader(DragModel model) throws IOException {
+        if (mHasHeader) {
+            throw new IllegalStateException("The header is already written");
+        }
+        mOutput.writeInt(model.getScreenWidth());
+        mOutput.writeInt(model.getScreenHeight());
+        mOutput.writeFloat(model.getDensity());
+        mOutput.writeInt(model.getStatusBarHeight());
+        mOutput.writeInt(model.getBubbleWidth());
+        mOutput.writeInt(model.getBubbleHeight());
+        mOutput.writeInt(model.getOverMargin());
+        mOutput.writeInt(model.getX());
+        mOutput.writeInt(model.getY());
+        mOutput.writeInt(model.getDragMode());
+        final SnapAnchors snapAnchors = model.getSnapAnchors();
+        mOutput.writeBoolean(snapAnchors != null);
+        if (snapAnchors != null) {
+            mOutput.writeBoolean(snapAnchors.hasCorners());
+            mOutput.writeInt(snapAnchors.getEdgeSlotInterval());
+            final int pointCount = snapAnchors.getPointCount();
+            mOutput.writeInt(pointCount);
+            for (int i = 0; i < pointCount; i++) {
+                mOutput.writeFloat(snapAnchors.getPointFractionX(i));
+                mOutput.writeFloat(snapAnchors.getPointFractionY(i));
+            }
+        }
+        mHasHeader = true;
+    }
+
+    // times are written relative to the previous event, the first one carries the base time
+    void write(int action, float rawX, float rawY, float x, float y, long eventTime, long downTime) throws IOException {
+        if (!mHasHeader) {
+            throw new IllegalStateException("The header must be written first");
+        }
+        if (!mHasBaseTime) {
+            mOutput.writeLong(eventTime);
+            mLastEventTime = eventTime;
+            mHasBaseTime = true;
+        }
+        mOutput.writeByte(action);
+        mOutput.writeFloat(rawX);
+        mOutput.writeFloat(rawY);
+        mOutput.writeFloat(x);
+        mOutput.writeFloat(y);
+        mOutput.writeInt((int) (eventTime - mLastEventTime));
+        mOutput.writeInt((int) (eventTime - downTime));
+        mLastEventTime = eventTime;
+        mCount++;
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    void flush() throws IOException {
+        mOutput.flush();
+    }
+
+    void close() throws IOException {
+        mOutput.close();
+    }
+}
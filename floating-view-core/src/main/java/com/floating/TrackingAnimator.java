@@ -0,0 +1,67 @@
+package com.floating;
+
+class TrackingAnimator {
+
+    static final long CAPTURE_DURATION_MILLIS = 300L;
+
+    private EasingCurve mCurve;
+
+    private long mStartTime;
+
+    private float mStartX;
+
+    private float mStartY;
+
+    private boolean mIsRestartPending;
+
+    private int mX;
+
+    private int mY;
+
+    TrackingAnimator(EasingCurve curve) {
+        mCurve = curve;
+    }
+
+    void setCurve(EasingCurve curve) {
+        mCurve = curve;
+    }
+
+    // a fresh drag catches up at once
+    void start(int x, int y) {
+        mStartTime = 0;
+        mStartX = x;
+        mStartY = y;
+        mX = x;
+        mY = y;
+        mIsRestartPending = false;
+    }
+
+    // a new target eases in from wherever the next frame finds the bubble
+    void restart() {
+        mIsRestartPending = true;
+    }
+
+    // return the capture time rate, 1 once the target has been caught
+    float step(long frameTimeMillis, int currentX, int currentY, float targetX, float targetY) {
+        if (mIsRestartPending) {
+            mStartTime = frameTimeMillis;
+            mStartX = currentX;
+            mStartY = currentY;
+            mIsRestartPending = false;
+        }
+        final float elapsedTime = frameTimeMillis - mStartTime;
+        final float timeRate = Math.min(elapsedTime / CAPTURE_DURATION_MILLIS, 1.0f);
+        final float basePosition = mCurve.getInterpolation(timeRate);
+        mX = (int) FloatingMath.calcTrackingPosition(mStartX, targetX, basePosition);
+        mY = (int) FloatingMath.calcTrackingPosition(mStartY, targetY, basePosition);
+        return timeRate;
+    }
+
+    int getX() {
+        return mX;
+    }
+
+    int getY() {
+        return mY;
+    }
+}
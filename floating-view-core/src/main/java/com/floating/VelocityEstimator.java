@@ -0,0 +1,105 @@
+package com.floating;
+
+// the unweighted quadratic least squares fit VelocityTracker uses by default, for replays without a MotionEvent
+class VelocityEstimator {
+
+    private static final int SAMPLE_COUNT = 20;
+
+    private static final long HORIZON_MILLIS = 100L;
+
+    // a pause this long and VelocityTracker forgets the samples before it
+    private static final long ASSUME_STOPPED_MILLIS = 40L;
+
+    private final long[] mTimes;
+
+    private final float[] mXs;
+
+    private final float[] mYs;
+
+    private int mCount;
+
+    private int mNewest;
+
+    private float mVelocityX;
+
+    private float mVelocityY;
+
+    VelocityEstimator() {
+        mTimes = new long[SAMPLE_COUNT];
+        mXs = new float[SAMPLE_COUNT];
+        mYs = new float[SAMPLE_COUNT];
+    }
+
+    void clear() {
+        mCount = 0;
+        mVelocityX = 0;
+        mVelocityY = 0;
+    }
+
+    void addSample(long eventTime, float x, float y) {
+        if (mCount > 0 && eventTime >= mTimes[mNewest] + ASSUME_STOPPED_MILLIS) {
+            mCount = 0;
+        }
+        mNewest = (mNewest + 1) % SAMPLE_COUNT;
+        mTimes[mNewest] = eventTime;
+        mXs[mNewest] = x;
+        mYs[mNewest] = y;
+        mCount = Math.min(mCount + 1, SAMPLE_COUNT);
+    }
+
+    // pixels per second at the newest sample, as computeCurrentVelocity(1000)
+    void computeVelocity() {
+        final long newestTime = mTimes[mNewest];
+        int count = 0;
+        while (count < mCount && newestTime - mTimes[(mNewest - count + SAMPLE_COUNT) % SAMPLE_COUNT] <= HORIZON_MILLIS) {
+            count++;
+        }
+        mVelocityX = (float) fitSlope(mXs, count);
+        mVelocityY = (float) fitSlope(mYs, count);
+    }
+
+    float getVelocityX() {
+        return mVelocityX;
+    }
+
+    float getVelocityY() {
+        return mVelocityY;
+    }
+
+    // the first derivative at the newest sample of a polynomial of degree 2, or less with fewer samples
+    private double fitSlope(float[] positions, int count) {
+        if (count < 2) {
+            return 0;
+        }
+        final long newestTime = mTimes[mNewest];
+        double sumT = 0;
+        double sumT2 = 0;
+        double sumT3 = 0;
+        double sumT4 = 0;
+        double sumP = 0;
+        double sumTP = 0;
+        double sumT2P = 0;
+        for (int i = 0; i < count; i++) {
+            final int index = (mNewest - i + SAMPLE_COUNT) % SAMPLE_COUNT;
+            final double t = (mTimes[index] - newestTime) / 1000.0;
+            final double p = positions[index];
+            sumT += t;
+            sumT2 += t * t;
+            sumT3 += t * t * t;
+            sumT4 += t * t * t * t;
+            sumP += p;
+            sumTP += t * p;
+            sumT2P += t * t * p;
+        }
+        if (count >= 3) {
+            // Cramer's rule on the normal equations, the slope is the linear coefficient
+            final double determinant = count * (sumT2 * sumT4 - sumT3 * sumT3) - sumT * (sumT * sumT4 - sumT3 * sumT2) + sumT2 * (sumT * sumT3 - sumT2 * sumT2);
+            if (determinant != 0) {
+                final double slopeDeterminant = count * (sumTP * sumT4 - sumT3 * sumT2P) - sumP * (sumT * sumT4 - sumT3 * sumT2) + sumT2 * (sumT * sumT2P - sumTP * sumT2);
+                return slopeDeterminant / determinant;
+            }
+        }
+        final double denominator = count * sumT2 - sumT * sumT;
+        return denominator != 0 ? (count * sumTP - sumT * sumP) / denominator : 0;
+    }
+}
@@ -0,0 +1,6 @@
+package com.floating;
+
+interface WindowSink {
+
+    void onWindowLayout(long frameTimeMillis, int x, int y);
+}
@@ -0,0 +1,32 @@
+package com.floating;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+final class AllocationAssert {
+
+    private static final int WARMUP_ITERATIONS = 20000;
+
+    private static final int ITERATIONS = 1000;
+
+    private AllocationAssert() {
+    }
+
+    // warms up first so that class loading and JIT do not count
+    static void assertNoAllocation(Runnable runnable) {
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runnable.run();
+        }
+
+        final long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            runnable.run();
+        }
+        final long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(0, allocated);
+    }
+}
@@ -0,0 +1,138 @@
+package com.floating;
+
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BubbleLayoutStoreTest {
+
+    @Test
+    public void restoresWhatWasPut() throws Exception {
+        final File file = File.createTempFile("bubbles", ".bin");
+        assertTrue(file.delete());
+        try {
+            final BubbleLayoutStore store = new BubbleLayoutStore(file);
+            assertNull(store.get("chat"));
+            store.put("chat", -16, 900, false);
+            store.put("music", 928, 400, true);
+            // a later position of the same bubble replaces the earlier one in the same write
+            store.put("chat", -16, 700, false);
+            // nothing is written on the calling thread
+            assertFalse(file.exists());
+            store.close();
+            assertTrue(store.awaitClosed(5000));
+            assertNull(store.getLastError());
+
+            final BubbleLayoutStore restored = new BubbleLayoutStore(file);
+            assertEquals(2, restored.size());
+            final BubbleLayoutStore.Entry chat = restored.get("chat");
+            assertEquals(-16, chat.x);
+            assertEquals(700, chat.y);
+            assertFalse(chat.isOnRight);
+            final BubbleLayoutStore.Entry music = restored.get("music");
+            assertEquals(928, music.x);
+            assertTrue(music.isOnRight);
+            restored.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void loadsOffTheCallingThread() throws Exception {
+        final File file = File.createTempFile("bubbles", ".bin");
+        assertTrue(file.delete());
+        try {
+            final BubbleLayoutStore store = new BubbleLayoutStore(file);
+            store.put("chat", -16, 900, false);
+            store.put("music", 928, 400, true);
+            store.remove("music");
+            store.close();
+            assertTrue(store.awaitClosed(5000));
+
+            // nobody asked for an entry, the writer thread read the file on its own
+            final BubbleLayoutStore restored = new BubbleLayoutStore(file);
+            restored.close();
+            assertTrue(restored.awaitClosed(5000));
+            assertTrue(restored.isLoaded());
+            assertEquals(1, restored.size());
+            assertNull(restored.get("music"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void ignoresFileOfOtherData() throws Exception {
+        final File file = File.createTempFile("bubbles", ".bin");
+        try {
+            writeBytes(file, new byte[]{0x12, 0x34, 0x56, 0x78, 0x00, 0x00, 0x00, 0x01, 0x7f});
+            assertDamagedFileIsReplaced(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void ignoresTruncatedFile() throws Exception {
+        final File file = File.createTempFile("bubbles", ".bin");
+        assertTrue(file.delete());
+        try {
+            final BubbleLayoutStore store = new BubbleLayoutStore(file);
+            store.put("chat", -16, 900, false);
+            store.put("music", 928, 400, true);
+            store.close();
+            assertTrue(store.awaitClosed(5000));
+
+            // the last record loses its side and part of its y
+            final byte[] bytes = readBytes(file);
+            writeBytes(file, Arrays.copyOf(bytes, bytes.length - 3));
+            assertDamagedFileIsReplaced(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void assertDamagedFileIsReplaced(File file) throws Exception {
+        final BubbleLayoutStore store = new BubbleLayoutStore(file);
+        assertEquals(0, store.size());
+        assertTrue(store.isLoaded());
+        store.put("chat", -16, 700, false);
+        store.close();
+        assertTrue(store.awaitClosed(5000));
+
+        final BubbleLayoutStore restored = new BubbleLayoutStore(file);
+        assertEquals(1, restored.size());
+        assertEquals(700, restored.get("chat").y);
+        restored.close();
+    }
+
+    private static void writeBytes(File file, byte[] bytes) throws Exception {
+        final FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(bytes);
+        } finally {
+            output.close();
+        }
+    }
+
+    private static byte[] readBytes(File file) throws Exception {
+        final byte[] bytes = new byte[(int) file.length()];
+        final DataInputStream input = new DataInputStream(new FileInputStream(file));
+        try {
+            input.readFully(bytes);
+        } finally {
+            input.close();
+        }
+        return bytes;
+    }
+}
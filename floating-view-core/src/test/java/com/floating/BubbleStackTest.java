@@ -0,0 +1,77 @@
+package com.floating;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BubbleStackTest {
+
+    private static final float FRAME_MILLIS = 16.0f;
+
+    private static final int MAX_FRAMES = 600;
+
+    @Test
+    public void step_followersTrailTheLeader() throws Exception {
+        final BubbleStack stack = new BubbleStack(4);
+        stack.setCount(4);
+        for (int i = 0; i < 4; i++) {
+            stack.setPosition(i, 0, 0);
+        }
+        stack.setSpacing(0, -10, 0);
+        stack.setLeader(500, 0);
+
+        assertTrue(stack.step(FRAME_MILLIS));
+        for (int frame = 0; frame < 5; frame++) {
+            stack.step(FRAME_MILLIS);
+        }
+        // every bubble is further behind than the one before it
+        assertTrue(stack.getX(1) > stack.getX(2));
+        assertTrue(stack.getX(2) > stack.getX(3));
+        assertTrue(stack.getX(3) > 0);
+
+        settle(stack);
+        for (int i = 1; i < 4; i++) {
+            assertEquals(500, stack.getX(i), 1.0f);
+            assertEquals(-10 * i, stack.getY(i), 1.0f);
+        }
+    }
+
+    @Test
+    public void step_expandedLinesUpNextToTheLeader() throws Exception {
+        final BubbleStack stack = new BubbleStack(1);
+        stack.setCount(3);
+        stack.setPosition(0, 100, 300);
+        stack.setPosition(1, 100, 290);
+        stack.setPosition(2, 100, 280);
+        stack.setSpacing(0, -10, 150);
+        stack.setExpandFraction(1.0f);
+
+        settle(stack);
+        assertEquals(250, stack.getX(1), 1.0f);
+        assertEquals(400, stack.getX(2), 1.0f);
+        assertEquals(300, stack.getY(2), 1.0f);
+    }
+
+    @Test
+    public void step_hugeFrameGapStaysStable() throws Exception {
+        final BubbleStack stack = new BubbleStack(2);
+        stack.setCount(2);
+        stack.setPosition(0, 1000, 0);
+        stack.setPosition(1, 0, 0);
+
+        stack.step(1000.0f);
+        assertTrue(stack.getX(1) <= 1000.0f);
+        settle(stack);
+        assertEquals(1000, stack.getX(1), 1.0f);
+    }
+
+    private static void settle(BubbleStack stack) {
+        int frames = 0;
+        while (stack.step(FRAME_MILLIS)) {
+            assertTrue(++frames < MAX_FRAMES);
+        }
+        assertFalse(stack.step(FRAME_MILLIS));
+    }
+}
@@ -0,0 +1,78 @@
+package com.floating;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DropZoneIndexTest {
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    @Test
+    public void findRect_returnsFirstIntersectingZone() throws Exception {
+        final DropZoneIndex index = new DropZoneIndex(128);
+        index.reset(WIDTH, HEIGHT);
+        index.add(400, -300, 680, 200);
+        index.add(0, 1700, 200, 1920);
+        index.add(300, 0, 800, 300);
+
+        assertEquals(0, index.findRect(450, 100, 550, 200));
+        assertEquals(2, index.findRect(700, 250, 760, 290));
+        assertEquals(1, index.findRect(-50, 1850, 50, 1950));
+        assertEquals(DropZoneIndex.NO_ZONE, index.findRect(900, 900, 1000, 1000));
+    }
+
+    @Test
+    public void findCircle_ignoresRectCorners() throws Exception {
+        final DropZoneIndex index = new DropZoneIndex(128);
+        index.reset(WIDTH, HEIGHT);
+        index.add(500, 500, 600, 600);
+
+        // bounding boxes overlap at the corner, the circle does not
+        assertEquals(DropZoneIndex.NO_ZONE, index.findCircle(440, 440, 80));
+        assertEquals(0, index.findCircle(470, 550, 40));
+    }
+
+    @Test
+    public void update_movesZoneBetweenCells() throws Exception {
+        final DropZoneIndex index = new DropZoneIndex(128);
+        index.reset(WIDTH, HEIGHT);
+        index.add(0, 0, 100, 100);
+        index.update(0, 900, 900, 1000, 1000);
+
+        assertEquals(DropZoneIndex.NO_ZONE, index.findRect(0, 0, 100, 100));
+        assertEquals(0, index.findRect(950, 950, 960, 960));
+    }
+
+    @Test
+    public void find_matchesLinearScan() throws Exception {
+        final Random random = new Random(42);
+        final DropZoneIndex index = new DropZoneIndex(96);
+        index.reset(WIDTH, HEIGHT);
+        final int zoneCount = 50;
+        final int[][] zones = new int[zoneCount][];
+        for (int i = 0; i < zoneCount; i++) {
+            final int left = random.nextInt(WIDTH + 200) - 100;
+            final int top = random.nextInt(HEIGHT + 200) - 100;
+            zones[i] = new int[]{left, top, left + 20 + random.nextInt(300), top + 20 + random.nextInt(300)};
+            index.add(zones[i][0], zones[i][1], zones[i][2], zones[i][3]);
+        }
+        for (int n = 0; n < 2000; n++) {
+            final int left = random.nextInt(WIDTH + 400) - 200;
+            final int top = random.nextInt(HEIGHT + 400) - 200;
+            final int size = 40 + random.nextInt(120);
+            int expected = DropZoneIndex.NO_ZONE;
+            for (int i = 0; i < zoneCount; i++) {
+                if (left < zones[i][2] && zones[i][0] < left + size && top < zones[i][3] && zones[i][1] < top + size) {
+                    expected = i;
+                    break;
+                }
+            }
+            assertEquals(expected, index.findRect(left, top, left + size, top + size));
+        }
+    }
+}
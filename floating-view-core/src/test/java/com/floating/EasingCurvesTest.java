@@ -0,0 +1,71 @@
+package com.floating;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class EasingCurvesTest {
+
+    private static final int SAMPLES = 10000;
+
+    private static final float TOLERANCE = 1e-4f;
+
+    @Test
+    public void tracking_matchesClosedForm() throws Exception {
+        for (int i = 0; i <= SAMPLES; i++) {
+            final float timeRate = i / (float) SAMPLES;
+            assertEquals("timeRate=" + timeRate, EasingCurves.calcTrackingPosition(timeRate), EasingCurves.TRACKING.getInterpolation(timeRate), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void tracking_matchesClosedFormInPixels() throws Exception {
+        final float startX = -200;
+        final float targetX = 2560;
+        for (int i = 0; i <= SAMPLES; i++) {
+            final float timeRate = i / (float) SAMPLES;
+            final float expected = startX + (targetX - startX) * EasingCurves.calcTrackingPosition(timeRate);
+            final float actual = startX + (targetX - startX) * EasingCurves.TRACKING.getInterpolation(timeRate);
+            assertEquals("timeRate=" + timeRate, expected, actual, 0.5f);
+        }
+    }
+
+    @Test
+    public void tracking_endsOnTarget() throws Exception {
+        assertEquals(1.0f, EasingCurves.TRACKING.getInterpolation(1.0f), 0.0f);
+        assertEquals(1.0f, EasingCurves.TRACKING.getInterpolation(2.0f), 0.0f);
+    }
+
+    @Test
+    public void overshoot_matchesOvershootInterpolator() throws Exception {
+        final float[] tensions = {1.0f, 1.25f, 2.0f, 3.3f, 4.0f};
+        for (float tension : tensions) {
+            final EasingCurve curve = EasingCurves.overshoot(tension);
+            for (int i = 0; i <= SAMPLES; i++) {
+                final float input = i / (float) SAMPLES;
+                assertEquals("tension=" + tension + " input=" + input, overshoot(tension, input), curve.getInterpolation(input), TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void precompute_matchesSource() throws Exception {
+        final EasingCurve source = new EasingCurve() {
+            @Override
+            public float getInterpolation(float input) {
+                return input * input;
+            }
+        };
+        final EasingCurve curve = EasingCurves.precompute(source, 256);
+        for (int i = 0; i <= SAMPLES; i++) {
+            final float input = i / (float) SAMPLES;
+            assertEquals(source.getInterpolation(input), curve.getInterpolation(input), TOLERANCE);
+        }
+    }
+
+    // android.view.animation.OvershootInterpolator
+    private static float overshoot(float tension, float t) {
+        t -= 1.0f;
+        return t * t * ((tension + 1) * t + tension) + 1.0f;
+    }
+}
@@ -0,0 +1,34 @@
+package com.floating;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FloatingMathTest {
+
+    @Test
+    public void calcEdgeSnapTension_staysInRange() throws Exception {
+        assertEquals(1.25f, FloatingMath.calcEdgeSnapTension(0, 1.25f, 4.0f), 0.0f);
+        assertEquals(2.0f, FloatingMath.calcEdgeSnapTension(-3000, 1.25f, 4.0f), 0.0001f);
+        assertEquals(4.0f, FloatingMath.calcEdgeSnapTension(20000, 1.25f, 4.0f), 0.0f);
+    }
+
+    @Test
+    public void calcTrashStickyY_risesForLowBubbles() throws Exception {
+        final float range = 30;
+        final int limitHeight = 200;
+        // a bubble at the bottom pulls the trash up by the whole sticky range
+        assertEquals(limitHeight - range, FloatingMath.calcTrashStickyY(-168, 168, 1920, range, limitHeight), 0.0001f);
+        // from the middle of the screen upwards it stays put
+        assertEquals(limitHeight, FloatingMath.calcTrashStickyY(960, 168, 1920, range, limitHeight), 0.0001f);
+        assertEquals(limitHeight, FloatingMath.calcTrashStickyY(1800, 168, 1920, range, limitHeight), 0.0001f);
+    }
+
+    @Test
+    public void calcTrashPositionX_followsTheBubble() throws Exception {
+        final float left = FloatingMath.calcTrashPositionX(0, -168, 168, 1080, -66, 132);
+        final float right = FloatingMath.calcTrashPositionX(0, 1080, 168, 1080, -66, 132);
+        assertEquals(-66, left, 0.0001f);
+        assertEquals(66, right, 0.0001f);
+    }
+}
@@ -0,0 +1,73 @@
+package com.floating;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FloatingViewMetricsTest {
+
+    private static final float FRAME_PERIOD_MILLIS = 1000.0f / 60.0f;
+
+    @Test
+    public void recordFrame_countsDroppedFrames() throws Exception {
+        final FloatingViewMetrics metrics = new FloatingViewMetrics();
+        metrics.recordFrame(-1, FRAME_PERIOD_MILLIS);
+        metrics.recordFrame(16, FRAME_PERIOD_MILLIS);
+        metrics.recordFrame(17, FRAME_PERIOD_MILLIS);
+        metrics.recordFrame(50, FRAME_PERIOD_MILLIS);
+        metrics.recordFrame(250, FRAME_PERIOD_MILLIS);
+
+        assertEquals(5, metrics.getRenderedFrameCount());
+        assertEquals(1 + 1 + 1 + 3 + 15, metrics.getExpectedFrameCount());
+        assertEquals(250, metrics.getLongestFrameGapMillis());
+        assertEquals(2, metrics.getFrameGapCount(0));
+        assertEquals(0, metrics.getFrameGapCount(1));
+        assertEquals(1, metrics.getFrameGapCount(2));
+        assertEquals(0, metrics.getFrameGapCount(3));
+        assertEquals(1, metrics.getFrameGapCount(4));
+
+        metrics.reset();
+        assertEquals(0, metrics.getRenderedFrameCount());
+        assertEquals(0, metrics.getFrameGapCount(4));
+        assertEquals(-1, metrics.getTouchToMoveMillis());
+    }
+
+    @Test
+    public void recordDragLatency_averages() throws Exception {
+        final FloatingViewMetrics metrics = new FloatingViewMetrics();
+        assertEquals(0, metrics.getDragLatencyCount());
+        metrics.recordDragLatency(-2.0f);
+        metrics.recordDragLatency(-4.0f);
+        metrics.recordDragLatency(12.0f);
+        assertEquals(3, metrics.getDragLatencyCount());
+        assertEquals(2.0f, metrics.getMeanDragLatencyMillis(), 0.001f);
+        assertEquals(12.0f, metrics.getMaxDragLatencyMillis(), 0.0f);
+        metrics.reset();
+        assertEquals(0, metrics.getDragLatencyCount());
+    }
+
+    @Test
+    public void record_doesNotAllocate() throws Exception {
+        final FloatingViewMetrics metrics = new FloatingViewMetrics();
+        AllocationAssert.assertNoAllocation(new Runnable() {
+            private int mSeed;
+
+            @Override
+            public void run() {
+                record(metrics, mSeed++);
+            }
+        });
+    }
+
+    private static void record(FloatingViewMetrics metrics, int seed) {
+        metrics.recordFrame(seed % 120, FRAME_PERIOD_MILLIS);
+        metrics.recordLayoutUpdate(seed * 1000L);
+        metrics.recordTouchToMove(seed % 40);
+        metrics.recordDragLatency(seed % 30 - 8);
+        metrics.recordCloseViewOpen(seed % 600);
+        metrics.recordCloseViewClose(seed % 200);
+        if (seed % 100 == 0) {
+            metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.floating;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GestureClassifierTest {
+
+    private static final float TOUCH_SLOP = 24.0f;
+
+    private static final long LONG_PRESS_TIMEOUT = 500L;
+
+    private static final long DOUBLE_TAP_TIMEOUT = 300L;
+
+    private static GestureClassifier newClassifier() {
+        return new GestureClassifier(TOUCH_SLOP, LONG_PRESS_TIMEOUT, DOUBLE_TAP_TIMEOUT, 150.0f, 7500.0f);
+    }
+
+    @Test
+    public void tap_isConfirmedAfterTheDoubleTapTimeout() throws Exception {
+        final GestureClassifier classifier = newClassifier();
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.onDown(1000L, 100, 100));
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.onMove(1040L, 105, 103));
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.onUp(1080L, 0, 0));
+        assertEquals(1080L + DOUBLE_TAP_TIMEOUT, classifier.getNextDeadline());
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.poll(1200L));
+        assertEquals(GestureClassifier.GESTURE_TAP, classifier.poll(1380L));
+        assertEquals(-1, classifier.getNextDeadline());
+    }
+
+    @Test
+    public void doubleTap() throws Exception {
+        final GestureClassifier classifier = newClassifier();
+        classifier.onDown(1000L, 100, 100);
+        classifier.onUp(1060L, 0, 0);
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.onDown(1200L, 110, 95));
+        assertEquals(GestureClassifier.GESTURE_DOUBLE_TAP, classifier.onUp(1260L, 0, 0));
+        assertEquals(-1, classifier.getNextDeadline());
+    }
+
+    @Test
+    public void lateSecondTap_confirmsTheFirst() throws Exception {
+        final GestureClassifier classifier = newClassifier();
+        classifier.onDown(1000L, 100, 100);
+        classifier.onUp(1060L, 0, 0);
+        assertEquals(GestureClassifier.GESTURE_TAP, classifier.onDown(1500L, 100, 100));
+    }
+
+    @Test
+    public void longPress() throws Exception {
+        final GestureClassifier classifier = newClassifier();
+        classifier.onDown(1000L, 100, 100);
+        assertEquals(1000L + LONG_PRESS_TIMEOUT, classifier.getNextDeadline());
+        assertEquals(GestureClassifier.GESTURE_LONG_PRESS, classifier.poll(1500L));
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.onUp(1700L, 0, 0));
+    }
+
+    @Test
+    public void flings() throws Exception {
+        final GestureClassifier classifier = newClassifier();
+        classifier.onDown(1000L, 100, 100);
+        classifier.onMove(1016L, 160, 100);
+        assertEquals(GestureClassifier.GESTURE_FLING, classifier.onUp(1032L, 3000, -200));
+        assertEquals(3000.0f, classifier.getVelocityX(), 0);
+
+        classifier.onDown(2000L, 100, 100);
+        classifier.onMove(2016L, 100, 300);
+        assertEquals(GestureClassifier.GESTURE_FLING_TO_DISMISS, classifier.onUp(2032L, 500, 9000));
+
+        // a slow drag is neither
+        classifier.onDown(3000L, 100, 100);
+        classifier.onMove(3300L, 400, 100);
+        assertEquals(GestureClassifier.GESTURE_NONE, classifier.onUp(3400L, 50, 0));
+    }
+
+    @Test
+    public void classify_doesNotAllocate() throws Exception {
+        final GestureClassifier classifier = newClassifier();
+        final int[] gestures = new int[1];
+        AllocationAssert.assertNoAllocation(new Runnable() {
+            private int mSeed;
+
+            @Override
+            public void run() {
+                gestures[0] += classify(classifier, mSeed++);
+            }
+        });
+        assertTrue(gestures[0] > 0);
+    }
+
+    private static int classify(GestureClassifier classifier, int seed) {
+        final long time = seed * 1000L;
+        int gestures = classifier.onDown(time, 100, 100);
+        gestures += classifier.onMove(time + 16, 100 + seed % 80, 100);
+        gestures += classifier.poll(time + 20);
+        gestures += classifier.onUp(time + 32, seed % 5000, seed % 9000);
+        return gestures;
+    }
+}
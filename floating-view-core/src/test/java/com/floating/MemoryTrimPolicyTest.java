@@ -0,0 +1,28 @@
+package com.floating;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MemoryTrimPolicyTest {
+
+    @Test
+    public void toTrimLevel_escalatesWhileRunning() throws Exception {
+        assertEquals(MemoryTrimPolicy.TRIM_LEVEL_NONE, MemoryTrimPolicy.toTrimLevel(0));
+        assertEquals(MemoryTrimPolicy.TRIM_LEVEL_CACHES, MemoryTrimPolicy.toTrimLevel(MemoryTrimPolicy.TRIM_MEMORY_RUNNING_MODERATE));
+        assertEquals(MemoryTrimPolicy.TRIM_LEVEL_IMAGES, MemoryTrimPolicy.toTrimLevel(MemoryTrimPolicy.TRIM_MEMORY_RUNNING_LOW));
+        assertEquals(MemoryTrimPolicy.TRIM_LEVEL_HIDDEN, MemoryTrimPolicy.toTrimLevel(MemoryTrimPolicy.TRIM_MEMORY_RUNNING_CRITICAL));
+    }
+
+    @Test
+    public void toTrimLevel_escalatesWhileCached() throws Exception {
+        assertEquals(MemoryTrimPolicy.TRIM_LEVEL_CACHES, MemoryTrimPolicy.toTrimLevel(MemoryTrimPolicy.TRIM_MEMORY_BACKGROUND));
+        assertEquals(MemoryTrimPolicy.TRIM_LEVEL_IMAGES, MemoryTrimPolicy.toTrimLevel(MemoryTrimPolicy.TRIM_MEMORY_MODERATE));
+        assertEquals(MemoryTrimPolicy.TRIM_LEVEL_HIDDEN, MemoryTrimPolicy.toTrimLevel(MemoryTrimPolicy.TRIM_MEMORY_COMPLETE));
+    }
+
+    @Test
+    public void toTrimLevel_keepsEverythingWhenOnlyTheUiIsHidden() throws Exception {
+        assertEquals(MemoryTrimPolicy.TRIM_LEVEL_NONE, MemoryTrimPolicy.toTrimLevel(MemoryTrimPolicy.TRIM_MEMORY_UI_HIDDEN));
+    }
+}
@@ -0,0 +1,50 @@
+package com.floating;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SnapAnchorIndexTest {
+
+    @Test
+    public void findNearest_emptyIndex() throws Exception {
+        final SnapAnchorIndex index = new SnapAnchorIndex();
+        index.build();
+        assertEquals(SnapAnchorIndex.NO_ANCHOR, index.findNearest(10, 10));
+    }
+
+    @Test
+    public void findNearest_matchesLinearScan() throws Exception {
+        final Random random = new Random(7);
+        final SnapAnchorIndex index = new SnapAnchorIndex();
+        final int anchorCount = 300;
+        final int[] xs = new int[anchorCount];
+        final int[] ys = new int[anchorCount];
+        for (int i = 0; i < anchorCount; i++) {
+            // edge-like anchors share coordinates on purpose
+            xs[i] = random.nextBoolean() ? random.nextInt(1080) : (random.nextBoolean() ? -16 : 1000);
+            ys[i] = random.nextInt(1800);
+            index.add(xs[i], ys[i]);
+        }
+        index.build();
+
+        for (int n = 0; n < 5000; n++) {
+            final float x = random.nextFloat() * 1400 - 160;
+            final float y = random.nextFloat() * 2200 - 200;
+            float expected = Float.MAX_VALUE;
+            for (int i = 0; i < anchorCount; i++) {
+                expected = Math.min(expected, distance(x, y, xs[i], ys[i]));
+            }
+            final int anchor = index.findNearest(x, y);
+            assertEquals(expected, distance(x, y, index.getX(anchor), index.getY(anchor)), 0.0f);
+        }
+    }
+
+    private static float distance(float x, float y, int anchorX, int anchorY) {
+        final float dx = x - anchorX;
+        final float dy = y - anchorY;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,59 @@
+package com.floating;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SnapAnimatorTest {
+
+    private static final long DURATION = 450L;
+
+    private static final long FRAME_TIME_MILLIS = 8L;
+
+    @Test
+    public void step_endsOnGoal() throws Exception {
+        final SnapAnimator animator = new SnapAnimator();
+        animator.start(540, 300, -16, 300, DURATION, new OvershootCurve(1.25f));
+
+        long frameTime = 1000L;
+        assertTrue(animator.step(frameTime));
+        assertEquals(540, animator.getCurrentX());
+        boolean isOvershot = false;
+        while (animator.step(frameTime += FRAME_TIME_MILLIS)) {
+            isOvershot |= animator.getCurrentX() < -16;
+        }
+        assertTrue(isOvershot);
+        assertEquals(-16, animator.getCurrentX());
+        assertEquals(300, animator.getCurrentY());
+        assertFalse(animator.isRunning());
+    }
+
+    @Test
+    public void step_doesNotAllocate() throws Exception {
+        final SnapAnimator animator = new SnapAnimator();
+        final OvershootCurve curve = new OvershootCurve(1.25f);
+        final int[] checksum = new int[1];
+        AllocationAssert.assertNoAllocation(new Runnable() {
+            private int mSeed;
+
+            @Override
+            public void run() {
+                checksum[0] += runSnap(animator, curve, mSeed++);
+            }
+        });
+        assertTrue(checksum[0] != 0);
+    }
+
+    private static int runSnap(SnapAnimator animator, OvershootCurve curve, int seed) {
+        curve.setTension(1.25f + (seed % 10) * 0.25f);
+        animator.start(seed % 1080, 200, 1000, 600, DURATION, curve);
+        long frameTime = seed;
+        int checksum = 0;
+        while (animator.step(frameTime += FRAME_TIME_MILLIS)) {
+            checksum += animator.getCurrentX() + animator.getCurrentY();
+        }
+        return checksum;
+    }
+}
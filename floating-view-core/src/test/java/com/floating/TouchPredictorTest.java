@@ -0,0 +1,49 @@
+package com.floating;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TouchPredictorTest {
+
+    @Test
+    public void predict_extrapolatesSteadyMovement() throws Exception {
+        final TouchPredictor predictor = new TouchPredictor(24L, 1000.0f);
+        // 1px/ms to the right, 0.5px/ms up
+        for (int i = 0; i <= 4; i++) {
+            predictor.addSample(1000L + i * 4, 100 + i * 4, 500 - i * 2);
+        }
+        predictor.predict(1016L + 16L);
+        assertEquals(16.0f, predictor.getLeadMillis(), 0.001f);
+        assertEquals(132.0f, predictor.getPredictedX(), 0.001f);
+        assertEquals(484.0f, predictor.getPredictedY(), 0.001f);
+    }
+
+    @Test
+    public void predict_staysInsideTheLimits() throws Exception {
+        final TouchPredictor predictor = new TouchPredictor(8L, 10.0f);
+        predictor.addSample(1000L, 0, 0);
+        predictor.addSample(1004L, 40, 0);
+        predictor.addSample(1008L, 80, 0);
+
+        // 10px/ms for at most 8ms, but no further than 10px
+        predictor.predict(1040L);
+        assertEquals(90.0f, predictor.getPredictedX(), 0.001f);
+        assertEquals(1.0f, predictor.getLeadMillis(), 0.001f);
+    }
+
+    @Test
+    public void predict_holdsStillWhenTheFingerRests() throws Exception {
+        final TouchPredictor predictor = new TouchPredictor(24L, 1000.0f);
+        predictor.addSample(1000L, 0, 0);
+        predictor.addSample(1008L, 40, 0);
+        predictor.predict(1200L);
+        assertEquals(40.0f, predictor.getPredictedX(), 0.0f);
+        assertEquals(0.0f, predictor.getLeadMillis(), 0.0f);
+
+        predictor.reset();
+        predictor.addSample(2000L, 10, 10);
+        predictor.predict(2016L);
+        assertEquals(10.0f, predictor.getPredictedX(), 0.0f);
+    }
+}
@@ -0,0 +1,185 @@
+package com.floating;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TouchReplayEngineTest {
+
+    private static final int SCREEN_WIDTH = 1080;
+
+    private static final int SCREEN_HEIGHT = 1920;
+
+    private static final int BUBBLE_SIZE = 168;
+
+    private static final int OVER_MARGIN = 16;
+
+    private static final int STATUS_BAR_HEIGHT = 72;
+
+    // the top left corner a new bubble settles in
+    private static final int START_X = -OVER_MARGIN;
+
+    private static final int START_Y = SCREEN_HEIGHT - STATUS_BAR_HEIGHT - BUBBLE_SIZE;
+
+    private static final int TRASH_CENTER_X = 540;
+
+    private static final int TRASH_CENTER_Y = 200;
+
+    @Test
+    public void dragAcrossSnapsToTheRightEdge() throws Exception {
+        final ArrayList<int[]> positions = replay(createDragTrace(createRecordedModel(), 0), null);
+
+        assertTrue(positions.size() > 10);
+        final int[] last = positions.get(positions.size() - 1);
+        assertEquals(SCREEN_WIDTH - BUBBLE_SIZE + OVER_MARGIN, last[1]);
+        // the finger went 600px down from where it grabbed the bubble
+        assertEquals(START_Y - 600, last[2]);
+    }
+
+    @Test
+    public void replayIsDeterministic() throws Exception {
+        final byte[] trace = createDragTrace(createRecordedModel(), 0);
+        final ArrayList<int[]> first = replay(trace, null);
+        final ArrayList<int[]> second = replay(trace, null);
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(first.get(i)[j], second.get(i)[j]);
+            }
+        }
+    }
+
+    @Test
+    public void tapDoesNotMove() throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final TouchTraceWriter writer = new TouchTraceWriter(outputStream);
+        writer.writeHeader(createRecordedModel());
+        writer.write(TouchTrace.ACTION_DOWN, 50, 150, 66, 78, 1000, 1000);
+        writer.write(TouchTrace.ACTION_MOVE, 53, 153, 69, 81, 1016, 1000);
+        writer.write(TouchTrace.ACTION_UP, 53, 153, 69, 81, 1090, 1000);
+        writer.close();
+
+        assertEquals(0, replay(outputStream.toByteArray(), null).size());
+    }
+
+    @Test
+    public void snapsToTheNearestAnchor() throws Exception {
+        final DragModel recordedModel = createRecordedModel();
+        recordedModel.setSnapAnchors(new SnapAnchors().addCorners());
+        // held still, the release has no velocity to throw the bubble with
+        final ArrayList<int[]> positions = replay(createDragTrace(recordedModel, 160), null);
+
+        final int[] last = positions.get(positions.size() - 1);
+        assertEquals(SCREEN_WIDTH - BUBBLE_SIZE + OVER_MARGIN, last[1]);
+        assertEquals(START_Y, last[2]);
+    }
+
+    @Test
+    public void lowLatencyFlingIsThrownToTheAnchorAhead() throws Exception {
+        final DragModel recordedModel = createRecordedModel();
+        recordedModel.setDragMode(DragModel.DRAG_MODE_LOW_LATENCY);
+        recordedModel.setSnapAnchors(new SnapAnchors().addCorners());
+        final byte[] trace = createBatchedDragTrace(recordedModel);
+
+        final TouchReplayEngine engine = new TouchReplayEngine(new ManualClock(0), TouchReplayEngine.DEFAULT_FRAME_MILLIS);
+        final DragModel model = engine.createDragModel(new TouchTraceReader(new ByteArrayInputStream(trace)));
+        assertEquals(DragModel.DRAG_MODE_LOW_LATENCY, model.getDragMode());
+        assertTrue(model.getSnapAnchors().hasCorners());
+
+        // released halfway up the screen while still moving down, the bubble goes on to the bottom corner
+        final ArrayList<int[]> positions = replay(trace, null);
+        final int[] last = positions.get(positions.size() - 1);
+        assertEquals(SCREEN_WIDTH - BUBBLE_SIZE + OVER_MARGIN, last[1]);
+        assertEquals(0, last[2]);
+    }
+
+    @Test
+    public void bubbleOverTheTrashIsDrawnToItsCenter() throws Exception {
+        final long upTime = 10000L + 330 + 480;
+        final ArrayList<int[]> positions = replay(createDragTrace(createRecordedModel(), 480), new TouchReplayEngine.TouchListener() {
+            @Override
+            public void onTouch(DragModel model, int action) {
+                // as the manager does when the bubble reaches the trash icon
+                if (model.getXByTouch() > SCREEN_WIDTH / 2) {
+                    model.setIntersecting(TRASH_CENTER_X, TRASH_CENTER_Y);
+                }
+            }
+        });
+
+        int[] lastBeforeUp = null;
+        for (int[] position : positions) {
+            if (position[0] <= upTime) {
+                lastBeforeUp = position;
+            }
+        }
+        assertEquals(TRASH_CENTER_X - BUBBLE_SIZE / 2, lastBeforeUp[1]);
+        assertEquals(TRASH_CENTER_Y - BUBBLE_SIZE / 2, lastBeforeUp[2]);
+    }
+
+    private static DragModel createRecordedModel() {
+        final DragModel model = new DragModel(new ManualClock(0), 3.0f, SCREEN_WIDTH, SCREEN_HEIGHT);
+        model.setOverMargin(OVER_MARGIN);
+        model.layout(SCREEN_WIDTH, SCREEN_HEIGHT, STATUS_BAR_HEIGHT, BUBBLE_SIZE, BUBBLE_SIZE);
+        model.setPosition(START_X, START_Y);
+        return model;
+    }
+
+    // a drag 800px right and 600px down, then held still for holdMillis before the release
+    private static byte[] createDragTrace(DragModel recordedModel, long holdMillis) throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final TouchTraceWriter writer = new TouchTraceWriter(outputStream);
+        writer.writeHeader(recordedModel);
+        // the bubble's top edge is below the status bar, the finger grabbed it at (76, 78)
+        final float localX = 60 - START_X;
+        final float localY = 150 - (SCREEN_HEIGHT - START_Y - BUBBLE_SIZE);
+        final long downTime = 10000L;
+        writer.write(TouchTrace.ACTION_DOWN, 60, 150, localX, localY, downTime, downTime);
+        for (int i = 1; i <= 40; i++) {
+            writer.write(TouchTrace.ACTION_MOVE, 60 + i * 20, 150 + i * 15, localX + i * 20, localY + i * 15, downTime + i * 8, downTime);
+        }
+        for (long time = 16; time <= holdMillis; time += 16) {
+            writer.write(TouchTrace.ACTION_MOVE, 860, 750, localX + 800, localY + 600, downTime + 320 + time, downTime);
+        }
+        writer.write(TouchTrace.ACTION_UP, 860, 750, localX + 800, localY + 600, downTime + 330 + holdMillis, downTime);
+        writer.close();
+        return outputStream.toByteArray();
+    }
+
+    // the same drag delivered once per frame, each move carrying the sample between it and the previous one
+    private static byte[] createBatchedDragTrace(DragModel recordedModel) throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final TouchTraceWriter writer = new TouchTraceWriter(outputStream);
+        writer.writeHeader(recordedModel);
+        final float localX = 60 - START_X;
+        final float localY = 150 - (SCREEN_HEIGHT - START_Y - BUBBLE_SIZE);
+        final long downTime = 10000L;
+        writer.write(TouchTrace.ACTION_DOWN, 60, 150, localX, localY, downTime, downTime);
+        for (int i = 2; i <= 40; i += 2) {
+            writer.write(TouchTrace.ACTION_HISTORY, 40 + i * 20, 135 + i * 15, localX + (i - 1) * 20, localY + (i - 1) * 15, downTime + (i - 1) * 8, downTime);
+            writer.write(TouchTrace.ACTION_MOVE, 60 + i * 20, 150 + i * 15, localX + i * 20, localY + i * 15, downTime + i * 8, downTime);
+        }
+        writer.write(TouchTrace.ACTION_UP, 860, 750, localX + 800, localY + 600, downTime + 322, downTime);
+        writer.close();
+        return outputStream.toByteArray();
+    }
+
+    private static ArrayList<int[]> replay(byte[] trace, TouchReplayEngine.TouchListener listener) throws Exception {
+        final ArrayList<int[]> positions = new ArrayList<>();
+        final TouchReplayEngine engine = new TouchReplayEngine(new ManualClock(0), TouchReplayEngine.DEFAULT_FRAME_MILLIS);
+        engine.setTouchListener(listener);
+        final TouchTraceReader reader = new TouchTraceReader(new ByteArrayInputStream(trace));
+        final DragModel model = engine.createDragModel(reader);
+        engine.replay(reader, model, new WindowSink() {
+            @Override
+            public void onWindowLayout(long frameTimeMillis, int x, int y) {
+                positions.add(new int[]{(int) frameTimeMillis, x, y});
+            }
+        });
+        return positions;
+    }
+}
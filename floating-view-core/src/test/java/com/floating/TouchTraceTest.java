@@ -0,0 +1,115 @@
+package com.floating;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TouchTraceTest {
+
+    @Test
+    public void readsBackWhatWasWritten() throws Exception {
+        final DragModel model = new DragModel(new ManualClock(0), 2.5f, 720, 1280);
+        model.setOverMargin(12);
+        model.layout(720, 1280, 60, 140, 150);
+        model.setPosition(-12, 900);
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final TouchTraceWriter writer = new TouchTraceWriter(outputStream);
+        writer.writeHeader(model);
+        writer.write(TouchTrace.ACTION_DOWN, 100.5f, 1800.0f, 40.5f, 60.0f, 5000000000L, 5000000000L);
+        writer.write(TouchTrace.ACTION_MOVE, 140.0f, 1750.25f, 80.0f, 10.25f, 5000000016L, 5000000000L);
+        writer.write(TouchTrace.ACTION_UP, 150.0f, 1740.0f, 90.0f, 0.0f, 5000000040L, 5000000000L);
+        writer.close();
+        assertEquals(3, writer.getCount());
+        assertEquals(4 + TouchTrace.HEADER_BYTES + 8 + 3 * TouchTrace.RECORD_BYTES, outputStream.size());
+
+        final TouchTraceReader reader = new TouchTraceReader(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertTrue(reader.hasHeader());
+        assertNull(reader.getSnapAnchors());
+        assertEquals(720, reader.getScreenWidth());
+        assertEquals(1280, reader.getScreenHeight());
+        assertEquals(2.5f, reader.getDensity(), 0);
+        assertEquals(60, reader.getStatusBarHeight());
+        assertEquals(140, reader.getBubbleWidth());
+        assertEquals(150, reader.getBubbleHeight());
+        assertEquals(12, reader.getOverMargin());
+        assertEquals(-12, reader.getStartX());
+        assertEquals(900, reader.getStartY());
+        assertTrue(reader.next());
+        assertEquals(TouchTrace.ACTION_DOWN, reader.getAction());
+        assertEquals(100.5f, reader.getRawX(), 0);
+        assertEquals(40.5f, reader.getX(), 0);
+        assertEquals(5000000000L, reader.getEventTime());
+        assertEquals(5000000000L, reader.getDownTime());
+        assertTrue(reader.next());
+        assertEquals(TouchTrace.ACTION_MOVE, reader.getAction());
+        assertEquals(1750.25f, reader.getRawY(), 0);
+        assertEquals(10.25f, reader.getY(), 0);
+        assertEquals(5000000016L, reader.getEventTime());
+        assertTrue(reader.next());
+        assertEquals(TouchTrace.ACTION_UP, reader.getAction());
+        assertEquals(5000000040L, reader.getEventTime());
+        assertEquals(5000000000L, reader.getDownTime());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void readsBackDragModeAnchorsAndHistory() throws Exception {
+        final DragModel model = new DragModel(new ManualClock(0), 2.5f, 720, 1280);
+        model.layout(720, 1280, 60, 140, 150);
+        model.setDragMode(DragModel.DRAG_MODE_LOW_LATENCY);
+        model.setSnapAnchors(new SnapAnchors().addCorners().addEdgeSlots(200).addPoint(0.5f, 0.25f));
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final TouchTraceWriter writer = new TouchTraceWriter(outputStream);
+        writer.writeHeader(model);
+        writer.write(TouchTrace.ACTION_DOWN, 100, 1800, 40, 60, 5000L, 5000L);
+        writer.write(TouchTrace.ACTION_HISTORY, 104, 1796, 44, 56, 5008L, 5000L);
+        writer.write(TouchTrace.ACTION_MOVE, 108, 1792, 48, 52, 5016L, 5000L);
+        writer.close();
+
+        final TouchTraceReader reader = new TouchTraceReader(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(DragModel.DRAG_MODE_LOW_LATENCY, reader.getDragMode());
+        final SnapAnchors snapAnchors = reader.getSnapAnchors();
+        assertTrue(snapAnchors.hasCorners());
+        assertEquals(200, snapAnchors.getEdgeSlotInterval());
+        assertEquals(1, snapAnchors.getPointCount());
+        assertEquals(0.5f, snapAnchors.getPointFractionX(0), 0);
+        assertEquals(0.25f, snapAnchors.getPointFractionY(0), 0);
+        assertTrue(reader.next());
+        assertTrue(reader.next());
+        assertEquals(TouchTrace.ACTION_HISTORY, reader.getAction());
+        assertEquals(44, reader.getX(), 0);
+        assertEquals(5008L, reader.getEventTime());
+        assertTrue(reader.next());
+        assertEquals(TouchTrace.ACTION_MOVE, reader.getAction());
+        assertEquals(5016L, reader.getEventTime());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void emptyTrace() throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new TouchTraceWriter(outputStream).close();
+        final TouchTraceReader reader = new TouchTraceReader(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertFalse(reader.hasHeader());
+        assertFalse(reader.next());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void eventsNeedTheHeader() throws Exception {
+        new TouchTraceWriter(new ByteArrayOutputStream()).write(TouchTrace.ACTION_DOWN, 0, 0, 0, 0, 0, 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherData() throws Exception {
+        new TouchTraceReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}));
+    }
+}
@@ -0,0 +1,57 @@
+package com.floating;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class VelocityEstimatorTest {
+
+    @Test
+    public void steadyMotion() {
+        final VelocityEstimator estimator = new VelocityEstimator();
+        for (int i = 0; i <= 10; i++) {
+            estimator.addSample(1000 + i * 8, 100 + i * 20, 500 - i * 4);
+        }
+        estimator.computeVelocity();
+        assertEquals(2500, estimator.getVelocityX(), 0.5f);
+        assertEquals(-500, estimator.getVelocityY(), 0.5f);
+    }
+
+    @Test
+    public void slowingDownReportsTheSpeedAtTheEnd() {
+        final VelocityEstimator estimator = new VelocityEstimator();
+        // x = 3000t - 10000t^2 over the last 80ms, the speed at t = 0.08 is 1400
+        for (int i = 0; i <= 10; i++) {
+            final float t = i * 0.008f;
+            estimator.addSample(1000 + i * 8, 3000 * t - 10000 * t * t, 0);
+        }
+        estimator.computeVelocity();
+        assertEquals(1400, estimator.getVelocityX(), 0.5f);
+        assertEquals(0, estimator.getVelocityY(), 0);
+    }
+
+    @Test
+    public void pauseForgetsTheMotionBefore() {
+        final VelocityEstimator estimator = new VelocityEstimator();
+        for (int i = 0; i <= 10; i++) {
+            estimator.addSample(1000 + i * 8, 100 + i * 20, 500);
+        }
+        estimator.addSample(1200, 300, 500);
+        estimator.computeVelocity();
+        assertEquals(0, estimator.getVelocityX(), 0);
+    }
+
+    @Test
+    public void oldSamplesAreOutsideTheHorizon() {
+        final VelocityEstimator estimator = new VelocityEstimator();
+        // 200ms at 2500px/s, then 100ms still
+        for (int i = 0; i <= 25; i++) {
+            estimator.addSample(1000 + i * 8, 100 + i * 20, 500);
+        }
+        for (int i = 1; i <= 4; i++) {
+            estimator.addSample(1200 + i * 25, 600, 500);
+        }
+        estimator.computeVelocity();
+        assertEquals(0, estimator.getVelocityX(), 0.001f);
+    }
+}
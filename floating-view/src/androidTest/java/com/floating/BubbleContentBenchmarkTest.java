@@ -0,0 +1,123 @@
+package com.floating;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.View;
+import android.view.WindowManager;
+import android.widget.ImageView;
+
+public class BubbleContentBenchmarkTest extends InstrumentationTestCase {
+
+    private static final String TAG = "BubbleContentBenchmark";
+
+    private static final int BUBBLE_COUNT = 50;
+
+    private static final int AVATAR_SIZE = 96;
+
+    private static final int WARMUP_ITERATIONS = 20;
+
+    private static final int ITERATIONS = 200;
+
+    private Context mContext;
+
+    private FrameClock mFrameClock;
+
+    private LayoutCommitter mLayoutCommitter;
+
+    private DisplayState mDisplayState;
+
+    private Bitmap mAvatar;
+
+    private Canvas mCanvas;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mContext = getInstrumentation().getTargetContext();
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final Clock clock = new AndroidClock();
+                mFrameClock = new FrameClock(clock);
+                mLayoutCommitter = new LayoutCommitter(mFrameClock, clock);
+                mDisplayState = new DisplayState((WindowManager) mContext.getSystemService(Context.WINDOW_SERVICE), mContext.getResources());
+            }
+        });
+        mAvatar = Bitmap.createBitmap(AVATAR_SIZE, AVATAR_SIZE, Bitmap.Config.ARGB_8888);
+        mAvatar.eraseColor(0xff3f51b5);
+        mCanvas = new Canvas(Bitmap.createBitmap(AVATAR_SIZE, AVATAR_SIZE, Bitmap.Config.ARGB_8888));
+    }
+
+    // logs both costs for comparison on a device, only the equal bubble size is asserted
+    public void testDrawableBubble_matchesImageViewBubbleSize() throws Exception {
+        final FloatingView[] imageViewBubbles = new FloatingView[BUBBLE_COUNT];
+        final FloatingView[] drawableBubbles = new FloatingView[BUBBLE_COUNT];
+        final long[] results = new long[4];
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                results[0] = measureRetainedBytes(imageViewBubbles, false);
+                results[1] = measureRetainedBytes(drawableBubbles, true);
+                results[2] = measureFrameNanos(imageViewBubbles);
+                results[3] = measureFrameNanos(drawableBubbles);
+            }
+        });
+
+        Log.i(TAG, "ImageView bubble: " + results[0] / BUBBLE_COUNT + " bytes, " + results[2] / BUBBLE_COUNT + " ns per measure, layout and draw");
+        Log.i(TAG, "Drawable bubble: " + results[1] / BUBBLE_COUNT + " bytes, " + results[3] / BUBBLE_COUNT + " ns per measure, layout and draw");
+        assertEquals(1, imageViewBubbles[0].getChildCount());
+        assertEquals(0, drawableBubbles[0].getChildCount());
+        assertEquals(imageViewBubbles[0].getMeasuredWidth(), drawableBubbles[0].getMeasuredWidth());
+        assertEquals(imageViewBubbles[0].getMeasuredHeight(), drawableBubbles[0].getMeasuredHeight());
+    }
+
+    private FloatingView createBubble(boolean isDrawable) {
+        final FloatingView floatingView = new FloatingView(mContext, mFrameClock, mLayoutCommitter, mDisplayState);
+        floatingView.setShape(FloatingViewManager.SHAPE_CIRCLE);
+        final BitmapDrawable drawable = new BitmapDrawable(mContext.getResources(), mAvatar);
+        if (isDrawable) {
+            floatingView.setContentDrawable(drawable);
+        } else {
+            final ImageView imageView = new ImageView(mContext);
+            imageView.setImageDrawable(drawable);
+            floatingView.addView(imageView);
+        }
+        return floatingView;
+    }
+
+    // heap growth for a batch of bubbles, kept alive by the array
+    private long measureRetainedBytes(FloatingView[] bubbles, boolean isDrawable) {
+        final Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        final long startBytes = runtime.totalMemory() - runtime.freeMemory();
+        for (int i = 0; i < bubbles.length; i++) {
+            bubbles[i] = createBubble(isDrawable);
+        }
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory() - startBytes;
+    }
+
+    private long measureFrameNanos(FloatingView[] bubbles) {
+        final int widthSpec = View.MeasureSpec.makeMeasureSpec(mDisplayState.getMetrics().widthPixels, View.MeasureSpec.AT_MOST);
+        final int heightSpec = View.MeasureSpec.makeMeasureSpec(mDisplayState.getMetrics().heightPixels, View.MeasureSpec.AT_MOST);
+        long elapsedNanos = 0;
+        for (int iteration = 0; iteration < WARMUP_ITERATIONS + ITERATIONS; iteration++) {
+            final long startTime = System.nanoTime();
+            for (FloatingView bubble : bubbles) {
+                // the bubble is relaid out and redrawn as on every frame of a press
+                bubble.forceLayout();
+                bubble.measure(widthSpec, heightSpec);
+                bubble.layout(0, 0, bubble.getMeasuredWidth(), bubble.getMeasuredHeight());
+                bubble.draw(mCanvas);
+            }
+            if (iteration >= WARMUP_ITERATIONS) {
+                elapsedNanos += System.nanoTime() - startTime;
+            }
+        }
+        return elapsedNanos / ITERATIONS;
+    }
+}
@@ -0,0 +1,33 @@
+package com.floating;
+
+import android.graphics.Bitmap;
+import android.test.InstrumentationTestCase;
+
+public class FloatingImageCacheDecodeTest extends InstrumentationTestCase {
+
+    // an mdpi only resource, the framework would scale it to the device density
+    private static final int AVATAR_SIZE = 96;
+
+    private FloatingImageCache mImageCache;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mImageCache = new FloatingImageCache(getInstrumentation().getContext(), 4 * 1024 * 1024);
+    }
+
+    public void testGetBitmap_sizesFromTheRawPixels() throws Exception {
+        final Bitmap bitmap = mImageCache.getBitmap(com.floating.test.R.drawable.test_avatar_mdpi, AVATAR_SIZE, AVATAR_SIZE);
+        assertEquals(AVATAR_SIZE, bitmap.getWidth());
+        assertEquals(AVATAR_SIZE, bitmap.getHeight());
+    }
+
+    public void testRelease_leavesTheCache() throws Exception {
+        final Bitmap bitmap = mImageCache.getBitmap(com.floating.test.R.drawable.test_avatar_mdpi, AVATAR_SIZE, AVATAR_SIZE);
+        mImageCache.release(bitmap);
+        assertEquals(0, mImageCache.getSize());
+        // the released bitmap may be decoded into, the old key decodes again instead of returning it
+        final Bitmap other = mImageCache.getBitmap(com.floating.test.R.drawable.test_avatar_mdpi, AVATAR_SIZE / 2, AVATAR_SIZE / 2);
+        assertNotSame(other, mImageCache.getBitmap(com.floating.test.R.drawable.test_avatar_mdpi, AVATAR_SIZE, AVATAR_SIZE));
+    }
+}
@@ -0,0 +1,16 @@
+package com.floating;
+
+import android.os.SystemClock;
+
+class AndroidClock implements Clock {
+
+    @Override
+    public long uptimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+}
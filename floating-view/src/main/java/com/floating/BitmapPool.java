@@ -0,0 +1,75 @@
+package com.floating;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.ArrayList;
+
+class BitmapPool {
+
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final ArrayList<Bitmap> mBitmaps;
+
+    private final int mMaxBytes;
+
+    private int mBytes;
+
+    BitmapPool(int maxBytes) {
+        mBitmaps = new ArrayList<>();
+        mMaxBytes = maxBytes;
+    }
+
+    void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+            return;
+        }
+        final int byteCount = getByteCount(bitmap);
+        if (byteCount > mMaxBytes || mBitmaps.contains(bitmap)) {
+            return;
+        }
+        // oldest bitmaps go first
+        while (mBytes + byteCount > mMaxBytes) {
+            mBytes -= getByteCount(mBitmaps.remove(0));
+        }
+        mBitmaps.add(bitmap);
+        mBytes += byteCount;
+    }
+
+    // a bitmap the decoder can write the given size into, null if there is none
+    Bitmap get(int width, int height, int sampleSize) {
+        final boolean isKitKat = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+        if (!isKitKat && sampleSize != 1) {
+            return null;
+        }
+        final int size = mBitmaps.size();
+        for (int i = 0; i < size; i++) {
+            final Bitmap bitmap = mBitmaps.get(i);
+            final boolean isReusable = isKitKat
+                    ? getByteCount(bitmap) >= width * height * BYTES_PER_PIXEL
+                    : bitmap.getWidth() == width && bitmap.getHeight() == height;
+            if (isReusable) {
+                mBitmaps.remove(i);
+                mBytes -= getByteCount(bitmap);
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    void clear() {
+        mBitmaps.clear();
+        mBytes = 0;
+    }
+
+    int getBytes() {
+        return mBytes;
+    }
+
+    static int getByteCount(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getByteCount();
+    }
+}
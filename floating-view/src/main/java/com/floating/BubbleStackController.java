@@ -0,0 +1,160 @@
+package com.floating;
+
+import android.util.DisplayMetrics;
+import android.view.WindowManager;
+
+import java.util.ArrayList;
+
+class BubbleStackController implements FrameClock.FrameCallback {
+
+    private static final long EXPAND_DURATION_MILLIS = 300L;
+
+    private static final long DEFAULT_FRAME_MILLIS = 16L;
+
+    private static final float STACK_OFFSET_DP = 4.0f;
+
+    private static final float ROW_GAP_DP = 8.0f;
+
+    private final FrameClock mFrameClock;
+
+    private final DisplayMetrics mMetrics;
+
+    private final BubbleStack mBubbleStack;
+
+    private final ArrayList<FloatingView> mChain;
+
+    private final EasingCurve mExpandCurve;
+
+    private boolean mIsRunning;
+
+    private long mLastFrameTime;
+
+    private int mLeaderX;
+
+    private int mLeaderY;
+
+    private boolean mIsExpanded;
+
+    private boolean mIsExpandAnimating;
+
+    private long mExpandStartTime;
+
+    private float mExpandFromFraction;
+
+    private float mExpandFraction;
+
+    BubbleStackController(FrameClock frameClock, DisplayMetrics metrics) {
+        mFrameClock = frameClock;
+        mMetrics = metrics;
+        mBubbleStack = new BubbleStack(8);
+        mChain = new ArrayList<>();
+        mExpandCurve = EasingCurves.TRACKING;
+    }
+
+    // the leader goes first, everything else trails in attach order
+    void setChain(FloatingView leader, ArrayList<FloatingView> floatingViews) {
+        releaseFollowers();
+        mChain.clear();
+        if (leader != null) {
+            mChain.add(leader);
+        }
+        final int size = floatingViews.size();
+        for (int i = 0; i < size; i++) {
+            final FloatingView floatingView = floatingViews.get(i);
+            if (floatingView != leader) {
+                floatingView.setStackFollower(true);
+                mChain.add(floatingView);
+            }
+        }
+        final int count = mChain.size();
+        mBubbleStack.setCount(count);
+        for (int i = 0; i < count; i++) {
+            final WindowManager.LayoutParams params = mChain.get(i).getWindowLayoutParams();
+            mBubbleStack.setPosition(i, params.x, params.y);
+        }
+        wake();
+    }
+
+    void setExpanded(boolean isExpanded) {
+        if (mIsExpanded == isExpanded) {
+            return;
+        }
+        mIsExpanded = isExpanded;
+        mIsExpandAnimating = true;
+        mExpandStartTime = 0;
+        mExpandFromFraction = mExpandFraction;
+        wake();
+    }
+
+    boolean isExpanded() {
+        return mIsExpanded;
+    }
+
+    void wake() {
+        if (!mIsRunning && mChain.size() > 1) {
+            mIsRunning = true;
+            mLastFrameTime = 0;
+            mFrameClock.addFrameCallback(this);
+        }
+    }
+
+    void stop() {
+        mIsRunning = false;
+        mFrameClock.removeFrameCallback(this);
+        releaseFollowers();
+    }
+
+    private void releaseFollowers() {
+        final int count = mChain.size();
+        for (int i = 1; i < count; i++) {
+            mChain.get(i).setStackFollower(false);
+        }
+    }
+
+    @Override
+    public boolean doFrame(long frameTimeMillis) {
+        final int count = mChain.size();
+        if (count < 2) {
+            mIsRunning = false;
+            return false;
+        }
+        final long elapsedMillis = mLastFrameTime == 0 ? DEFAULT_FRAME_MILLIS : frameTimeMillis - mLastFrameTime;
+        mLastFrameTime = frameTimeMillis;
+
+        if (mIsExpandAnimating) {
+            if (mExpandStartTime == 0) {
+                mExpandStartTime = frameTimeMillis;
+            }
+            final float timeRate = Math.min((frameTimeMillis - mExpandStartTime) / (float) EXPAND_DURATION_MILLIS, 1.0f);
+            final float toFraction = mIsExpanded ? 1.0f : 0.0f;
+            mExpandFraction = mExpandFromFraction + (toFraction - mExpandFromFraction) * mExpandCurve.getInterpolation(timeRate);
+            mIsExpandAnimating = timeRate < 1.0f;
+        }
+
+        final FloatingView leader = mChain.get(0);
+        final WindowManager.LayoutParams leaderParams = leader.getWindowLayoutParams();
+        final boolean isLeaderMoved = leaderParams.x != mLeaderX || leaderParams.y != mLeaderY;
+        mLeaderX = leaderParams.x;
+        mLeaderY = leaderParams.y;
+
+        // the stack peeks out below the leader and the row opens towards the middle of the screen
+        final float density = mMetrics.density;
+        final int bubbleWidth = leader.getBubbleWidth();
+        final boolean isOnRight = mLeaderX > (mMetrics.widthPixels - bubbleWidth) / 2;
+        final float rowSpacing = bubbleWidth + ROW_GAP_DP * density;
+        mBubbleStack.setSpacing(0, -STACK_OFFSET_DP * density, isOnRight ? -rowSpacing : rowSpacing);
+        mBubbleStack.setExpandFraction(mExpandFraction);
+        mBubbleStack.setLeader(mLeaderX, mLeaderY);
+
+        final boolean isMoving = mBubbleStack.step(elapsedMillis);
+        for (int i = 1; i < count; i++) {
+            mChain.get(i).setStackPosition(Math.round(mBubbleStack.getX(i)), Math.round(mBubbleStack.getY(i)));
+        }
+
+        if (isMoving || isLeaderMoved || mIsExpandAnimating) {
+            return true;
+        }
+        mIsRunning = false;
+        return false;
+    }
+}
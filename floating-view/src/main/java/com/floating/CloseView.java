@@ -1,17 +1,18 @@
 package com.floating;
 
-import android.animation.ObjectAnimator;
-import android.animation.PropertyValuesHolder;
 import android.content.Context;
-import android.content.res.Configuration;
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
+import android.graphics.Shader;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Message;
-import android.os.SystemClock;
+import android.support.v4.content.ContextCompat;
 import android.util.DisplayMetrics;
 import android.view.Gravity;
 import android.view.MotionEvent;
@@ -19,7 +20,6 @@ import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
 import android.view.WindowManager;
-import android.view.animation.OvershootInterpolator;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 
@@ -32,6 +32,10 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
 
     private static final int BACKGROUND_HEIGHT = 164;
 
+    private static final int BACKGROUND_START_COLOR = 0x00000000;
+
+    private static final int BACKGROUND_END_COLOR = 0x50000000;
+
     private static final float TARGET_CAPTURE_HORIZONTAL_REGION = 30.0f;
 
     private static final float TARGET_CAPTURE_VERTICAL_REGION = 4.0f;
@@ -50,6 +54,8 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
 
     private final WindowManager mWindowManager;
 
+    private final LayoutCommitter mLayoutCommitter;
+
     private final WindowManager.LayoutParams mParams;
 
     private final DisplayMetrics mMetrics;
@@ -70,20 +76,43 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
 
     private final FrameLayout mBackgroundView;
 
-    private ObjectAnimator mEnterScaleAnimator;
+    private boolean mIsFlattened;
+
+    // the drawn state, pushed into the hierarchy or drawn directly when flattened
+    private float mBackgroundAlpha;
+
+    private float mTrashIconTranslationX;
+
+    private float mTrashIconTranslationY;
+
+    private float mActionTrashIconScale;
+
+    private Drawable mFixedTrashIconDrawable;
+
+    private Drawable mActionTrashIconDrawable;
+
+    private int mActionTrashIconPaddingX;
+
+    private int mActionTrashIconPaddingY;
+
+    private final int mBackgroundHeight;
 
-    private ObjectAnimator mExitScaleAnimator;
+    private final Paint mBackgroundPaint;
 
     private final AnimationHandler mAnimationHandler;
 
     private CloseViewListener mCloseViewListener;
 
-    CloseView(Context context) {
+    private int mTrashBoundsVersion;
+
+    private FloatingViewMetrics mViewMetrics;
+
+    CloseView(Context context, FrameClock frameClock, LayoutCommitter layoutCommitter, DisplayState displayState) {
         super(context);
         mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-        mMetrics = new DisplayMetrics();
-        mWindowManager.getDefaultDisplay().getMetrics(mMetrics);
-        mAnimationHandler = new AnimationHandler(this);
+        mLayoutCommitter = layoutCommitter;
+        mMetrics = displayState.getMetrics();
+        mAnimationHandler = new AnimationHandler(this, frameClock);
 
         mParams = new WindowManager.LayoutParams();
         mParams.width = ViewGroup.LayoutParams.MATCH_PARENT;
@@ -101,14 +130,18 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
         mActionTrashIconView = new ImageView(context);
         mBackgroundView = new FrameLayout(context);
         mBackgroundView.setAlpha(0.0f);
-        final GradientDrawable gradientDrawable = new GradientDrawable(GradientDrawable.Orientation.TOP_BOTTOM, new int[]{0x00000000, 0x50000000});
+        mActionTrashIconScale = 1.0f;
+        mBackgroundHeight = (int) (BACKGROUND_HEIGHT * mMetrics.density);
+        mBackgroundPaint = new Paint();
+        mBackgroundPaint.setShader(new LinearGradient(0, 0, 0, mBackgroundHeight, BACKGROUND_START_COLOR, BACKGROUND_END_COLOR, Shader.TileMode.CLAMP));
+        final GradientDrawable gradientDrawable = new GradientDrawable(GradientDrawable.Orientation.TOP_BOTTOM, new int[]{BACKGROUND_START_COLOR, BACKGROUND_END_COLOR});
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
             mBackgroundView.setBackgroundDrawable(gradientDrawable);
         } else {
             mBackgroundView.setBackground(gradientDrawable);
         }
 
-        final FrameLayout.LayoutParams backgroundParams = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, (int) (BACKGROUND_HEIGHT * mMetrics.density));
+        final FrameLayout.LayoutParams backgroundParams = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, mBackgroundHeight);
         mRootView.addView(mBackgroundView, backgroundParams);
         final FrameLayout.LayoutParams actionTrashIconParams = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
         actionTrashIconParams.gravity = Gravity.CENTER;
@@ -125,33 +158,113 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
         getViewTreeObserver().addOnPreDrawListener(this);
     }
 
+    // one view drawing the gradient and both icons, alpha and translation stay paint and matrix state
+    void setFlattened(boolean isFlattened) {
+        if (mIsFlattened == isFlattened) {
+            return;
+        }
+        mIsFlattened = isFlattened;
+        if (isFlattened) {
+            removeView(mRootView);
+            mFixedTrashIconView.setImageDrawable(null);
+            mActionTrashIconView.setImageDrawable(null);
+            setTrashIconCallback(null, mFixedTrashIconDrawable);
+            setTrashIconCallback(null, mActionTrashIconDrawable);
+            updateFlatTrashIconBounds();
+        } else {
+            setTrashIconCallback(mFixedTrashIconDrawable, null);
+            setTrashIconCallback(mActionTrashIconDrawable, null);
+            mFixedTrashIconView.setImageDrawable(mFixedTrashIconDrawable);
+            mActionTrashIconView.setImageDrawable(mActionTrashIconDrawable);
+            mBackgroundView.setAlpha(mBackgroundAlpha);
+            mTrashIconRootView.setTranslationX(mTrashIconTranslationX);
+            mTrashIconRootView.setTranslationY(mTrashIconTranslationY);
+            mActionTrashIconView.setScaleX(mActionTrashIconScale);
+            mActionTrashIconView.setScaleY(mActionTrashIconScale);
+            addView(mRootView);
+        }
+        setWillNotDraw(!isFlattened);
+        requestLayout();
+        invalidate();
+        invalidateTrashBounds();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (!mIsFlattened) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        final int height = Math.max(mBackgroundHeight, getTrashIconRootHeight());
+        setMeasuredDimension(getDefaultSize(0, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (!mIsFlattened) {
+            return;
+        }
+        if (mBackgroundAlpha > 0.0f) {
+            mBackgroundPaint.setAlpha((int) (mBackgroundAlpha * 255 + 0.5f));
+            canvas.drawRect(0, 0, getWidth(), mBackgroundHeight, mBackgroundPaint);
+        }
+
+        final int rootWidth = getTrashIconRootWidth();
+        final int rootHeight = getTrashIconRootHeight();
+        final int saveCount = canvas.save();
+        canvas.translate(getTrashIconRootX(), getTrashIconRootY());
+        canvas.clipRect(0, 0, rootWidth, rootHeight);
+        if (mActionTrashIconDrawable != null) {
+            canvas.save();
+            canvas.scale(mActionTrashIconScale, mActionTrashIconScale, rootWidth / 2.0f, rootHeight / 2.0f);
+            mActionTrashIconDrawable.draw(canvas);
+            canvas.restore();
+        }
+        if (mFixedTrashIconDrawable != null) {
+            mFixedTrashIconDrawable.draw(canvas);
+        }
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return super.verifyDrawable(who) || (mIsFlattened && (who == mFixedTrashIconDrawable || who == mActionTrashIconDrawable));
+    }
+
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
         updateViewLayout();
     }
 
+    // lazily attached, a detached CloseView is laid out when it is added again
+    void onDisplayChanged() {
+        if (getParent() != null) {
+            updateViewLayout();
+        }
+    }
+
     @Override
-    protected void onConfigurationChanged(Configuration newConfig) {
-        super.onConfigurationChanged(newConfig);
-        updateViewLayout();
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        invalidateTrashBounds();
     }
 
     @Override
     public boolean onPreDraw() {
         getViewTreeObserver().removeOnPreDrawListener(this);
-        mTrashIconRootView.setTranslationY(mTrashIconRootView.getMeasuredHeight());
+        setTrashIconTranslation(mTrashIconTranslationX, getTrashIconRootHeight());
         return true;
     }
 
     private void updateViewLayout() {
-        mWindowManager.getDefaultDisplay().getMetrics(mMetrics);
         mParams.x = (mMetrics.widthPixels - getWidth()) / 2;
         mParams.y = 0;
 
         mAnimationHandler.onUpdateViewLayout();
 
-        mWindowManager.updateViewLayout(this, mParams);
+        mLayoutCommitter.updateViewLayout(mWindowManager, this, mParams);
     }
 
     void dismiss() {
@@ -162,16 +275,172 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
     }
 
 
+    private void invalidateTrashBounds() {
+        mTrashBoundsVersion++;
+    }
+
+    int getTrashBoundsVersion() {
+        return mTrashBoundsVersion;
+    }
+
+    private void setBackgroundAlpha(float alpha) {
+        if (mBackgroundAlpha == alpha) {
+            return;
+        }
+        mBackgroundAlpha = alpha;
+        if (mIsFlattened) {
+            invalidate();
+        } else {
+            mBackgroundView.setAlpha(alpha);
+        }
+    }
+
+    private void setTrashIconTranslation(float x, float y) {
+        if (mTrashIconTranslationX != x || mTrashIconTranslationY != y) {
+            mTrashIconTranslationX = x;
+            mTrashIconTranslationY = y;
+            if (mIsFlattened) {
+                invalidate();
+            } else {
+                mTrashIconRootView.setTranslationX(x);
+                mTrashIconRootView.setTranslationY(y);
+            }
+        }
+        invalidateTrashBounds();
+    }
+
+    private void setActionTrashIconScale(float scale) {
+        if (mActionTrashIconScale == scale) {
+            return;
+        }
+        mActionTrashIconScale = scale;
+        if (mIsFlattened) {
+            invalidate();
+        } else {
+            mActionTrashIconView.setScaleX(scale);
+            mActionTrashIconView.setScaleY(scale);
+        }
+    }
+
+    private int getBackgroundHeight() {
+        return mIsFlattened ? mBackgroundHeight : mBackgroundView.getMeasuredHeight();
+    }
+
+    private int getRootHeight() {
+        return mIsFlattened ? getHeight() : mRootView.getHeight();
+    }
+
+    // the flattened icon root is as large as the wrap_content FrameLayout it replaces
+    private int getTrashIconRootWidth() {
+        if (!mIsFlattened) {
+            return mTrashIconRootView.getMeasuredWidth();
+        }
+        return Math.max(getIntrinsicWidth(mFixedTrashIconDrawable), getIntrinsicWidth(mActionTrashIconDrawable) + 2 * mActionTrashIconPaddingX);
+    }
+
+    private int getTrashIconRootHeight() {
+        if (!mIsFlattened) {
+            return mTrashIconRootView.getMeasuredHeight();
+        }
+        return Math.max(getIntrinsicHeight(mFixedTrashIconDrawable), getIntrinsicHeight(mActionTrashIconDrawable) + 2 * mActionTrashIconPaddingY);
+    }
+
+    private float getTrashIconRootX() {
+        if (!mIsFlattened) {
+            return mTrashIconRootView.getX();
+        }
+        return (getWidth() - getTrashIconRootWidth()) / 2 + mTrashIconTranslationX;
+    }
+
+    private float getTrashIconRootY() {
+        if (!mIsFlattened) {
+            return mTrashIconRootView.getY();
+        }
+        return getHeight() - getTrashIconRootHeight() + mTrashIconTranslationY;
+    }
+
+    private float getTrashIconPaddingX() {
+        if (!mIsFlattened) {
+            return hasActionTrashIcon() ? mActionTrashIconView.getPaddingLeft() : mFixedTrashIconView.getPaddingLeft();
+        }
+        return hasActionTrashIcon() ? mActionTrashIconPaddingX : 0;
+    }
+
+    private float getTrashIconPaddingY() {
+        if (!mIsFlattened) {
+            return hasActionTrashIcon() ? mActionTrashIconView.getPaddingTop() : mFixedTrashIconView.getPaddingTop();
+        }
+        return hasActionTrashIcon() ? mActionTrashIconPaddingY : 0;
+    }
+
+    private float getTrashIconWidth() {
+        if (!mIsFlattened) {
+            final ImageView iconView = hasActionTrashIcon() ? mActionTrashIconView : mFixedTrashIconView;
+            return iconView.getWidth() - iconView.getPaddingLeft() - iconView.getPaddingRight();
+        }
+        return getIntrinsicWidth(hasActionTrashIcon() ? mActionTrashIconDrawable : mFixedTrashIconDrawable);
+    }
+
+    private float getTrashIconHeight() {
+        if (!mIsFlattened) {
+            final ImageView iconView = hasActionTrashIcon() ? mActionTrashIconView : mFixedTrashIconView;
+            return iconView.getHeight() - iconView.getPaddingTop() - iconView.getPaddingBottom();
+        }
+        return getIntrinsicHeight(hasActionTrashIcon() ? mActionTrashIconDrawable : mFixedTrashIconDrawable);
+    }
+
+    private static int getIntrinsicWidth(Drawable drawable) {
+        return drawable != null ? Math.max(drawable.getIntrinsicWidth(), 0) : 0;
+    }
+
+    private static int getIntrinsicHeight(Drawable drawable) {
+        return drawable != null ? Math.max(drawable.getIntrinsicHeight(), 0) : 0;
+    }
+
+    // both icons are centered in the icon root, like the two ImageViews
+    private void updateFlatTrashIconBounds() {
+        final int rootWidth = getTrashIconRootWidth();
+        final int rootHeight = getTrashIconRootHeight();
+        setCenteredBounds(mFixedTrashIconDrawable, rootWidth, rootHeight);
+        setCenteredBounds(mActionTrashIconDrawable, rootWidth, rootHeight);
+    }
+
+    private static void setCenteredBounds(Drawable drawable, int rootWidth, int rootHeight) {
+        if (drawable == null) {
+            return;
+        }
+        final int width = getIntrinsicWidth(drawable);
+        final int height = getIntrinsicHeight(drawable);
+        final int left = (rootWidth - width) / 2;
+        final int top = (rootHeight - height) / 2;
+        drawable.setBounds(left, top, left + width, top + height);
+    }
+
+    private void setTrashIconCallback(Drawable oldDrawable, Drawable newDrawable) {
+        if (oldDrawable != null) {
+            oldDrawable.setCallback(null);
+        }
+        if (newDrawable != null) {
+            newDrawable.setCallback(this);
+        }
+    }
+
+    private void onFlatTrashIconChanged() {
+        updateFlatTrashIconBounds();
+        requestLayout();
+        invalidate();
+        invalidateTrashBounds();
+    }
+
     void getWindowDrawingRect(Rect outRect) {
-        final ImageView iconView = hasActionTrashIcon() ? mActionTrashIconView : mFixedTrashIconView;
-        final float iconPaddingLeft = iconView.getPaddingLeft();
-        final float iconPaddingTop = iconView.getPaddingTop();
-        final float iconWidth = iconView.getWidth() - iconPaddingLeft - iconView.getPaddingRight();
-        final float iconHeight = iconView.getHeight() - iconPaddingTop - iconView.getPaddingBottom();
-        final float x = mTrashIconRootView.getX() + iconPaddingLeft;
-        final float y = mRootView.getHeight() - mTrashIconRootView.getY() - iconPaddingTop - iconHeight;
+        final float iconPaddingLeft = getTrashIconPaddingX();
+        final float iconPaddingTop = getTrashIconPaddingY();
+        final float iconWidth = getTrashIconWidth();
+        final float iconHeight = getTrashIconHeight();
+        final float x = getTrashIconRootX() + iconPaddingLeft;
+        final float y = getRootHeight() - getTrashIconRootY() - iconPaddingTop - iconHeight;
         final int left = (int) (x - TARGET_CAPTURE_HORIZONTAL_REGION * mMetrics.density);
-        final int top = -mRootView.getHeight();
+        final int top = -getRootHeight();
         final int right = (int) (x + iconWidth + TARGET_CAPTURE_HORIZONTAL_REGION * mMetrics.density);
         final int bottom = (int) (y + iconHeight + TARGET_CAPTURE_VERTICAL_REGION * mMetrics.density);
         outRect.set(left, top, right, bottom);
@@ -186,32 +455,35 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
         final float newWidthScale = width / mActionTrashIconBaseWidth * shape;
         final float newHeightScale = height / mActionTrashIconBaseHeight * shape;
         mActionTrashIconMaxScale = Math.max(newWidthScale, newHeightScale);
-        mEnterScaleAnimator = ObjectAnimator.ofPropertyValuesHolder(mActionTrashIconView, PropertyValuesHolder.ofFloat(ImageView.SCALE_X, mActionTrashIconMaxScale), PropertyValuesHolder.ofFloat(ImageView.SCALE_Y, mActionTrashIconMaxScale));
-        mEnterScaleAnimator.setInterpolator(new OvershootInterpolator());
-        mEnterScaleAnimator.setDuration(TRASH_ICON_SCALE_DURATION_MILLIS);
-        mExitScaleAnimator = ObjectAnimator.ofPropertyValuesHolder(mActionTrashIconView, PropertyValuesHolder.ofFloat(ImageView.SCALE_X, 1.0f), PropertyValuesHolder.ofFloat(ImageView.SCALE_Y, 1.0f));
-        mExitScaleAnimator.setInterpolator(new OvershootInterpolator());
-        mExitScaleAnimator.setDuration(TRASH_ICON_SCALE_DURATION_MILLIS);
 
-        final int horizontalPadding = Math.max((int) ((mActionTrashIconMaxScale - 1.0f) * mActionTrashIconBaseWidth / 2 + 0.5f), 0);
-        final int verticalPadding = Math.max((int) ((mActionTrashIconMaxScale - 1.0f) * mActionTrashIconBaseHeight / 2 + 0.5f), 0);
-        mActionTrashIconView.setPadding(horizontalPadding, verticalPadding, horizontalPadding, verticalPadding);
+        mActionTrashIconPaddingX = Math.max((int) ((mActionTrashIconMaxScale - 1.0f) * mActionTrashIconBaseWidth / 2 + 0.5f), 0);
+        mActionTrashIconPaddingY = Math.max((int) ((mActionTrashIconMaxScale - 1.0f) * mActionTrashIconBaseHeight / 2 + 0.5f), 0);
+        mActionTrashIconView.setPadding(mActionTrashIconPaddingX, mActionTrashIconPaddingY, mActionTrashIconPaddingX, mActionTrashIconPaddingY);
+        if (mIsFlattened) {
+            onFlatTrashIconChanged();
+        }
+    }
+
+    // the manager loads them again before the next attach, return false if there was no icon to release
+    boolean releaseFixedTrashIcon() {
+        final boolean isReleased = mFixedTrashIconDrawable != null;
+        setFixedTrashIconImage((Drawable) null);
+        return isReleased;
+    }
+
+    boolean releaseActionTrashIcon() {
+        final boolean isReleased = mActionTrashIconDrawable != null;
+        setActionTrashIconImage((Drawable) null);
+        return isReleased;
     }
 
     float getTrashIconCenterX() {
-        final ImageView iconView = hasActionTrashIcon() ? mActionTrashIconView : mFixedTrashIconView;
-        final float iconViewPaddingLeft = iconView.getPaddingLeft();
-        final float iconWidth = iconView.getWidth() - iconViewPaddingLeft - iconView.getPaddingRight();
-        final float x = mTrashIconRootView.getX() + iconViewPaddingLeft;
-        return x + iconWidth / 2;
+        return getTrashIconRootX() + getTrashIconPaddingX() + getTrashIconWidth() / 2;
     }
 
     float getTrashIconCenterY() {
-        final ImageView iconView = hasActionTrashIcon() ? mActionTrashIconView : mFixedTrashIconView;
-        final float iconViewHeight = iconView.getHeight();
-        final float iconViewPaddingBottom = iconView.getPaddingBottom();
-        final float iconHeight = iconViewHeight - iconView.getPaddingTop() - iconViewPaddingBottom;
-        final float y = mRootView.getHeight() - mTrashIconRootView.getY() - iconViewHeight + iconViewPaddingBottom;
+        final float iconHeight = getTrashIconHeight();
+        final float y = getRootHeight() - getTrashIconRootY() - getTrashIconPaddingY() - iconHeight;
         return y + iconHeight / 2;
     }
 
@@ -220,35 +492,43 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
     }
 
     void setFixedTrashIconImage(int resId) {
-        mFixedTrashIconView.setImageResource(resId);
+        setFixedTrashIconImage(ContextCompat.getDrawable(getContext(), resId));
     }
 
     void setActionTrashIconImage(int resId) {
-        mActionTrashIconView.setImageResource(resId);
-        final Drawable drawable = mActionTrashIconView.getDrawable();
-        if (drawable != null) {
-            mActionTrashIconBaseWidth = drawable.getIntrinsicWidth();
-            mActionTrashIconBaseHeight = drawable.getIntrinsicHeight();
-        }
+        setActionTrashIconImage(ContextCompat.getDrawable(getContext(), resId));
     }
 
     void setFixedTrashIconImage(Drawable drawable) {
-        mFixedTrashIconView.setImageDrawable(drawable);
+        final Drawable oldDrawable = mFixedTrashIconDrawable;
+        mFixedTrashIconDrawable = drawable;
+        if (mIsFlattened) {
+            setTrashIconCallback(oldDrawable, drawable);
+            onFlatTrashIconChanged();
+        } else {
+            mFixedTrashIconView.setImageDrawable(drawable);
+        }
     }
 
     void setActionTrashIconImage(Drawable drawable) {
-        mActionTrashIconView.setImageDrawable(drawable);
+        final Drawable oldDrawable = mActionTrashIconDrawable;
+        mActionTrashIconDrawable = drawable;
         if (drawable != null) {
             mActionTrashIconBaseWidth = drawable.getIntrinsicWidth();
             mActionTrashIconBaseHeight = drawable.getIntrinsicHeight();
         }
+        if (mIsFlattened) {
+            setTrashIconCallback(oldDrawable, drawable);
+            onFlatTrashIconChanged();
+        } else {
+            mActionTrashIconView.setImageDrawable(drawable);
+        }
     }
 
     private void setScaleTrashIconImmediately(boolean isEnter) {
         cancelScaleTrashAnimation();
 
-        mActionTrashIconView.setScaleX(isEnter ? mActionTrashIconMaxScale : 1.0f);
-        mActionTrashIconView.setScaleY(isEnter ? mActionTrashIconMaxScale : 1.0f);
+        setActionTrashIconScale(isEnter ? mActionTrashIconMaxScale : 1.0f);
     }
 
     void setScaleTrashIcon(boolean isEnter) {
@@ -256,23 +536,19 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
             return;
         }
 
-        cancelScaleTrashAnimation();
-
-        if (isEnter) {
-            mEnterScaleAnimator.start();
-        } else {
-            mExitScaleAnimator.start();
-        }
+        mAnimationHandler.startScale(mActionTrashIconScale, isEnter ? mActionTrashIconMaxScale : 1.0f);
     }
 
     private void cancelScaleTrashAnimation() {
-        if (mEnterScaleAnimator != null && mEnterScaleAnimator.isStarted()) {
-            mEnterScaleAnimator.cancel();
-        }
+        mAnimationHandler.cancelScale();
+    }
 
-        if (mExitScaleAnimator != null && mExitScaleAnimator.isStarted()) {
-            mExitScaleAnimator.cancel();
-        }
+    void setTrashOpenCurve(EasingCurve curve) {
+        mAnimationHandler.mTrashOpenCurve = curve != null ? curve : new OvershootCurve(AnimationHandler.OVERSHOOT_TENSION);
+    }
+
+    void setMetrics(FloatingViewMetrics metrics) {
+        mViewMetrics = metrics;
     }
 
     void setTrashViewListener(CloseViewListener listener) {
@@ -303,9 +579,7 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
         }
     }
 
-    static class AnimationHandler extends Handler {
-
-        private static final long ANIMATION_REFRESH_TIME_MILLIS = 17L;
+    static class AnimationHandler extends Handler implements FrameClock.FrameCallback {
 
         private static final long BACKGROUND_DURATION_MILLIS = 200L;
 
@@ -317,20 +591,25 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
 
         private static final float OVERSHOOT_TENSION = 1.0f;
 
+        // the tension of a default OvershootInterpolator
+        private static final float SCALE_OVERSHOOT_TENSION = 2.0f;
+
         private static final int TRASH_MOVE_LIMIT_OFFSET_X = 22;
 
         private static final int TRASH_MOVE_LIMIT_TOP_OFFSET = -4;
 
-        private static final int TYPE_FIRST = 1;
-
-        private static final int TYPE_UPDATE = 2;
-
         private static final float MAX_ALPHA = 1.0f;
 
         private static final float MIN_ALPHA = 0.0f;
 
         private long mStartTime;
 
+        private boolean mIsFirstFrame;
+
+        private boolean mIsRunning;
+
+        private boolean mIsOpenRecorded;
+
         private float mStartAlpha;
 
         private float mStartTransitionY;
@@ -349,15 +628,31 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
 
         private float mMoveStickyYRange;
 
-        private final OvershootInterpolator mOvershootInterpolator;
+        private EasingCurve mTrashOpenCurve;
+
+        private boolean mIsScaling;
+
+        private boolean mIsFirstScaleFrame;
+
+        private long mScaleStartTime;
+
+        private float mStartScale;
+
+        private float mTargetScale;
+
+        private final EasingCurve mScaleCurve;
+
+        private final FrameClock mFrameClock;
 
         private final WeakReference<CloseView> mTrashView;
 
-        AnimationHandler(CloseView closeView) {
+        AnimationHandler(CloseView closeView, FrameClock frameClock) {
             mTrashView = new WeakReference<>(closeView);
+            mFrameClock = frameClock;
             mStartedCode = ANIMATION_NONE;
             mTrashIconLimitPosition = new Rect();
-            mOvershootInterpolator = new OvershootInterpolator(OVERSHOOT_TENSION);
+            mTrashOpenCurve = new OvershootCurve(OVERSHOOT_TENSION);
+            mScaleCurve = new OvershootCurve(SCALE_OVERSHOOT_TENSION);
         }
 
         @Override
@@ -367,88 +662,164 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
                 removeMessages(ANIMATION_OPEN);
                 removeMessages(ANIMATION_CLOSE);
                 removeMessages(ANIMATION_FORCE_CLOSE);
+                mFrameClock.removeFrameCallback(this);
+                mIsRunning = false;
                 return;
             }
 
+            FloatingTrace.beginSection(FloatingTrace.CLOSE_ANIMATION);
             final int animationCode = msg.what;
-            final int animationType = msg.arg1;
-            final FrameLayout backgroundView = closeView.mBackgroundView;
-            final FrameLayout trashIconRootView = closeView.mTrashIconRootView;
             final CloseViewListener listener = closeView.mCloseViewListener;
-            final float screenWidth = closeView.mMetrics.widthPixels;
-            final float trashViewX = closeView.mParams.x;
 
-            if (animationType == TYPE_FIRST) {
-                mStartTime = SystemClock.uptimeMillis();
-                mStartAlpha = backgroundView.getAlpha();
-                mStartTransitionY = trashIconRootView.getTranslationY();
-                mStartedCode = animationCode;
+            mIsFirstFrame = true;
+            mIsOpenRecorded = false;
+            mStartAlpha = closeView.mBackgroundAlpha;
+            mStartTransitionY = closeView.mTrashIconTranslationY;
+            mStartedCode = animationCode;
+            if (listener != null) {
+                listener.onCloseAnimationStarted(mStartedCode);
+            }
+
+            if (animationCode == ANIMATION_FORCE_CLOSE) {
+                if (!mIsScaling) {
+                    mFrameClock.removeFrameCallback(this);
+                }
+                mIsRunning = false;
+                closeView.setBackgroundAlpha(0.0f);
+                closeView.setTrashIconTranslation(closeView.mTrashIconTranslationX, mTrashIconLimitPosition.bottom);
+                mStartedCode = ANIMATION_NONE;
                 if (listener != null) {
-                    listener.onCloseAnimationStarted(mStartedCode);
+                    listener.onCloseAnimationEnd(ANIMATION_FORCE_CLOSE);
                 }
+            } else {
+                mIsRunning = true;
+                mFrameClock.addFrameCallback(this);
             }
-            final float elapsedTime = SystemClock.uptimeMillis() - mStartTime;
+            FloatingTrace.endSection();
+        }
 
-            if (animationCode == ANIMATION_OPEN) {
-                final float currentAlpha = backgroundView.getAlpha();
+        @Override
+        public boolean doFrame(long frameTimeMillis) {
+            final CloseView closeView = mTrashView.get();
+            if (closeView == null) {
+                mIsRunning = false;
+                mIsScaling = false;
+                return false;
+            }
+            if (mIsScaling) {
+                mIsScaling = doScaleFrame(closeView, frameTimeMillis);
+            }
+            if (mIsRunning) {
+                mIsRunning = doTrashFrame(closeView, frameTimeMillis);
+            }
+            return mIsRunning || mIsScaling;
+        }
+
+        private boolean doScaleFrame(CloseView closeView, long frameTimeMillis) {
+            if (mIsFirstScaleFrame) {
+                mScaleStartTime = frameTimeMillis;
+                mIsFirstScaleFrame = false;
+            }
+            final float timeRate = Math.min((float) (frameTimeMillis - mScaleStartTime) / TRASH_ICON_SCALE_DURATION_MILLIS, 1.0f);
+            closeView.setActionTrashIconScale(mStartScale + (mTargetScale - mStartScale) * mScaleCurve.getInterpolation(timeRate));
+            return timeRate < 1.0f;
+        }
+
+        private boolean doTrashFrame(CloseView closeView, long frameTimeMillis) {
+            if (mStartedCode == ANIMATION_NONE) {
+                return false;
+            }
+
+            final CloseViewListener listener = closeView.mCloseViewListener;
+            final float screenWidth = closeView.mMetrics.widthPixels;
+            final float trashViewX = closeView.mParams.x;
+
+            if (mIsFirstFrame) {
+                mStartTime = frameTimeMillis;
+                mIsFirstFrame = false;
+            }
+            final float elapsedTime = frameTimeMillis - mStartTime;
+
+            if (mStartedCode == ANIMATION_OPEN) {
+                final float currentAlpha = closeView.mBackgroundAlpha;
                 if (currentAlpha < MAX_ALPHA) {
                     final float alphaTimeRate = Math.min(elapsedTime / BACKGROUND_DURATION_MILLIS, 1.0f);
                     final float alpha = Math.min(mStartAlpha + alphaTimeRate, MAX_ALPHA);
-                    backgroundView.setAlpha(alpha);
+                    closeView.setBackgroundAlpha(alpha);
                 }
 
+                boolean isSettled = false;
                 if (elapsedTime >= TRASH_OPEN_START_DELAY_MILLIS) {
                     final float screenHeight = closeView.mMetrics.heightPixels;
-                    final float positionX = trashViewX + (mTargetPositionX + mTargetWidth) / (screenWidth + mTargetWidth) * mTrashIconLimitPosition.width() + mTrashIconLimitPosition.left;
-                    final float targetPositionYRate = Math.min(2 * (mTargetPositionY + mTargetHeight) / (screenHeight + mTargetHeight), 1.0f);
-                    final float stickyPositionY = mMoveStickyYRange * targetPositionYRate + mTrashIconLimitPosition.height() - mMoveStickyYRange;
+                    final float positionX = FloatingMath.calcTrashPositionX(trashViewX, mTargetPositionX, mTargetWidth, screenWidth, mTrashIconLimitPosition.left, mTrashIconLimitPosition.width());
+                    final float stickyPositionY = FloatingMath.calcTrashStickyY(mTargetPositionY, mTargetHeight, screenHeight, mMoveStickyYRange, mTrashIconLimitPosition.height());
                     final float translationYTimeRate = Math.min((elapsedTime - TRASH_OPEN_START_DELAY_MILLIS) / TRASH_OPEN_DURATION_MILLIS, 1.0f);
-                    final float positionY = mTrashIconLimitPosition.bottom - stickyPositionY * mOvershootInterpolator.getInterpolation(translationYTimeRate);
-                    trashIconRootView.setTranslationX(positionX);
-                    trashIconRootView.setTranslationY(positionY);
+                    final float positionY = mTrashIconLimitPosition.bottom - stickyPositionY * mTrashOpenCurve.getInterpolation(translationYTimeRate);
+                    isSettled = translationYTimeRate >= 1.0f && closeView.mTrashIconTranslationX == positionX && closeView.mTrashIconTranslationY == positionY;
+                    closeView.setTrashIconTranslation(positionX, positionY);
                 }
-
-                sendMessageAtTime(newMessage(animationCode, TYPE_UPDATE), SystemClock.uptimeMillis() + ANIMATION_REFRESH_TIME_MILLIS);
-            } else if (animationCode == ANIMATION_CLOSE) {
+                // opened and following nothing, sleep until the target moves
+                if (isSettled && closeView.mBackgroundAlpha >= MAX_ALPHA) {
+                    if (!mIsOpenRecorded && closeView.mViewMetrics != null) {
+                        closeView.mViewMetrics.recordCloseViewOpen(frameTimeMillis - mStartTime);
+                    }
+                    mIsOpenRecorded = true;
+                    return false;
+                }
+                return true;
+            } else if (mStartedCode == ANIMATION_CLOSE) {
                 final float alphaElapseTimeRate = Math.min(elapsedTime / BACKGROUND_DURATION_MILLIS, 1.0f);
                 final float alpha = Math.max(mStartAlpha - alphaElapseTimeRate, MIN_ALPHA);
-                backgroundView.setAlpha(alpha);
+                closeView.setBackgroundAlpha(alpha);
 
                 final float translationYTimeRate = Math.min(elapsedTime / TRASH_CLOSE_DURATION_MILLIS, 1.0f);
                 if (alphaElapseTimeRate < 1.0f || translationYTimeRate < 1.0f) {
                     final float position = mStartTransitionY + mTrashIconLimitPosition.height() * translationYTimeRate;
-                    trashIconRootView.setTranslationY(position);
-                    sendMessageAtTime(newMessage(animationCode, TYPE_UPDATE), SystemClock.uptimeMillis() + ANIMATION_REFRESH_TIME_MILLIS);
-                } else {
-                    trashIconRootView.setTranslationY(mTrashIconLimitPosition.bottom);
-                    mStartedCode = ANIMATION_NONE;
-                    if (listener != null) {
-                        listener.onCloseAnimationEnd(ANIMATION_CLOSE);
-                    }
+                    closeView.setTrashIconTranslation(closeView.mTrashIconTranslationX, position);
+                    return true;
                 }
-            } else if (animationCode == ANIMATION_FORCE_CLOSE) {
-                backgroundView.setAlpha(0.0f);
-                trashIconRootView.setTranslationY(mTrashIconLimitPosition.bottom);
+                closeView.setTrashIconTranslation(closeView.mTrashIconTranslationX, mTrashIconLimitPosition.bottom);
                 mStartedCode = ANIMATION_NONE;
+                if (closeView.mViewMetrics != null) {
+                    closeView.mViewMetrics.recordCloseViewClose(frameTimeMillis - mStartTime);
+                }
                 if (listener != null) {
-                    listener.onCloseAnimationEnd(ANIMATION_FORCE_CLOSE);
+                    listener.onCloseAnimationEnd(ANIMATION_CLOSE);
                 }
             }
+            return false;
         }
 
+        void startScale(float startScale, float targetScale) {
+            mStartScale = startScale;
+            mTargetScale = targetScale;
+            mIsFirstScaleFrame = true;
+            mIsScaling = true;
+            mFrameClock.addFrameCallback(this);
+        }
+
+        void cancelScale() {
+            mIsScaling = false;
+        }
+
+        private void resumeAnimation() {
+            if (mStartedCode == ANIMATION_OPEN && !mIsRunning) {
+                mIsRunning = true;
+                mFrameClock.addFrameCallback(this);
+            }
+        }
 
         void sendAnimationMessageDelayed(int animation, long delayMillis) {
-            sendMessageAtTime(newMessage(animation, TYPE_FIRST), SystemClock.uptimeMillis() + delayMillis);
+            sendMessageDelayed(newMessage(animation), delayMillis);
         }
 
         void sendAnimationMessage(int animation) {
-            sendMessage(newMessage(animation, TYPE_FIRST));
+            sendMessage(newMessage(animation));
         }
 
-        private static Message newMessage(int animation, int type) {
+        private static Message newMessage(int animation) {
             final Message message = Message.obtain();
             message.what = animation;
-            message.arg1 = type;
             return message;
         }
 
@@ -457,8 +828,11 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
         }
 
         void updateTargetPosition(float x, float y) {
-            mTargetPositionX = x;
-            mTargetPositionY = y;
+            if (mTargetPositionX != x || mTargetPositionY != y) {
+                mTargetPositionX = x;
+                mTargetPositionY = y;
+                resumeAnimation();
+            }
         }
 
         void onUpdateViewLayout() {
@@ -467,15 +841,16 @@ public class CloseView extends FrameLayout implements ViewTreeObserver.OnPreDraw
                 return;
             }
             final float density = closeView.mMetrics.density;
-            final float backgroundHeight = closeView.mBackgroundView.getMeasuredHeight();
+            final float backgroundHeight = closeView.getBackgroundHeight();
             final float offsetX = TRASH_MOVE_LIMIT_OFFSET_X * density;
-            final int trashIconHeight = closeView.mTrashIconRootView.getMeasuredHeight();
+            final int trashIconHeight = closeView.getTrashIconRootHeight();
             final int left = (int) -offsetX;
             final int top = (int) ((trashIconHeight - backgroundHeight) / 2 - TRASH_MOVE_LIMIT_TOP_OFFSET * density);
             final int right = (int) offsetX;
             mTrashIconLimitPosition.set(left, top, right, trashIconHeight);
 
             mMoveStickyYRange = backgroundHeight * 0.20f;
+            resumeAnimation();
         }
     }
 }
\ No newline at end of file
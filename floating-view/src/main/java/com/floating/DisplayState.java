@@ -0,0 +1,79 @@
+package com.floating;
+
+import android.content.res.Resources;
+import android.util.DisplayMetrics;
+import android.view.Display;
+import android.view.WindowManager;
+
+class DisplayState {
+
+    private final WindowManager mWindowManager;
+
+    private final Resources mResources;
+
+    private final DisplayMetrics mMetrics;
+
+    private int mStatusBarHeight;
+
+    private int mRotation;
+
+    private int mVersion;
+
+    private boolean mIsDirty;
+
+    DisplayState(WindowManager windowManager, Resources resources) {
+        mWindowManager = windowManager;
+        mResources = resources;
+        mMetrics = new DisplayMetrics();
+        mIsDirty = true;
+        refresh();
+    }
+
+    // the next read queries the display again
+    void invalidate() {
+        mIsDirty = true;
+    }
+
+    // shared by every view, refreshed in place
+    DisplayMetrics getMetrics() {
+        refresh();
+        return mMetrics;
+    }
+
+    int getStatusBarHeight() {
+        refresh();
+        return mStatusBarHeight;
+    }
+
+    int getRotation() {
+        refresh();
+        return mRotation;
+    }
+
+    // changes whenever the size, the status bar or the rotation did
+    int getVersion() {
+        refresh();
+        return mVersion;
+    }
+
+    private void refresh() {
+        if (!mIsDirty) {
+            return;
+        }
+        mIsDirty = false;
+        final int oldWidth = mMetrics.widthPixels;
+        final int oldHeight = mMetrics.heightPixels;
+        final int oldStatusBarHeight = mStatusBarHeight;
+        final int oldRotation = mRotation;
+
+        final Display display = mWindowManager.getDefaultDisplay();
+        display.getMetrics(mMetrics);
+        mRotation = display.getRotation();
+        final int statusBarHeightId = mResources.getIdentifier("status_bar_height", "dimen", "android");
+        mStatusBarHeight = statusBarHeightId > 0 ? mResources.getDimensionPixelSize(statusBarHeightId) : 0;
+
+        if (oldWidth != mMetrics.widthPixels || oldHeight != mMetrics.heightPixels || oldStatusBarHeight != mStatusBarHeight || oldRotation != mRotation) {
+            mVersion++;
+        }
+    }
+}
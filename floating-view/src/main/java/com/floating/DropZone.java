@@ -0,0 +1,43 @@
+package com.floating;
+
+import android.graphics.Rect;
+
+public class DropZone {
+
+    private final Rect mBounds;
+
+    private final DropZoneListener mDropZoneListener;
+
+    private FloatingViewManager mManager;
+
+    public DropZone(DropZoneListener listener) {
+        mBounds = new Rect();
+        mDropZoneListener = listener;
+    }
+
+    /**
+     * Bounds in screen coordinates.
+     */
+    public void setBounds(int left, int top, int right, int bottom) {
+        mBounds.set(left, top, right, bottom);
+        if (mManager != null) {
+            mManager.invalidateDropZones();
+        }
+    }
+
+    public void setBounds(Rect bounds) {
+        setBounds(bounds.left, bounds.top, bounds.right, bounds.bottom);
+    }
+
+    public void getBounds(Rect outRect) {
+        outRect.set(mBounds);
+    }
+
+    DropZoneListener getDropZoneListener() {
+        return mDropZoneListener;
+    }
+
+    void setManager(FloatingViewManager manager) {
+        mManager = manager;
+    }
+}
@@ -0,0 +1,13 @@
+package com.floating;
+
+import android.view.View;
+
+public interface DropZoneListener {
+
+    void onDropZoneEnter(DropZone dropZone, View view);
+
+    void onDropZoneExit(DropZone dropZone, View view);
+
+    void onDropZoneDrop(DropZone dropZone, View view);
+
+}
@@ -0,0 +1,198 @@
+package com.floating;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.util.LruCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+public class FloatingImageCache {
+
+    private final Context mContext;
+
+    private final LruCache<String, Bitmap> mBitmapCache;
+
+    private final BitmapPool mBitmapPool;
+
+    private final StringBuilder mKeyBuilder;
+
+    /**
+     * Keeps up to maxBytes of decoded bitmaps, and up to a quarter of that of released bitmaps for reuse.
+     */
+    public FloatingImageCache(Context context, int maxBytes) {
+        mContext = context.getApplicationContext();
+        mBitmapCache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return BitmapPool.getByteCount(value);
+            }
+        };
+        mBitmapPool = new BitmapPool(maxBytes / 4);
+        mKeyBuilder = new StringBuilder();
+    }
+
+    /**
+     * Decodes the resource at most once per size, downsampled close to width x height pixels.
+     * A size of 0 keeps the resource's own density scaled size.
+     */
+    public Bitmap getBitmap(int resId, int width, int height) {
+        final String key = buildKey("res:", String.valueOf(resId), width, height);
+        Bitmap bitmap = mBitmapCache.get(key);
+        if (bitmap == null) {
+            bitmap = decode(resId, null, width, height);
+            if (bitmap != null) {
+                mBitmapCache.put(key, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    public Bitmap getBitmap(Uri uri, int width, int height) {
+        final String key = buildKey("uri:", uri.toString(), width, height);
+        Bitmap bitmap = mBitmapCache.get(key);
+        if (bitmap == null) {
+            bitmap = decode(0, uri, width, height);
+            if (bitmap != null) {
+                mBitmapCache.put(key, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    public Drawable getDrawable(int resId, int width, int height) {
+        return toDrawable(getBitmap(resId, width, height));
+    }
+
+    public Drawable getDrawable(Uri uri, int width, int height) {
+        return toDrawable(getBitmap(uri, width, height));
+    }
+
+    /**
+     * Hands back a bitmap that no view shows anymore so the next decode can reuse its memory.
+     * The bitmap leaves the cache, the next request for it decodes again.
+     */
+    public void release(Bitmap bitmap) {
+        // a pooled bitmap gets overwritten by the next decode, a cache hit must never return it
+        for (Map.Entry<String, Bitmap> entry : mBitmapCache.snapshot().entrySet()) {
+            if (entry.getValue() == bitmap) {
+                mBitmapCache.remove(entry.getKey());
+            }
+        }
+        mBitmapPool.put(bitmap);
+    }
+
+    public void evictAll() {
+        mBitmapCache.evictAll();
+        mBitmapPool.clear();
+    }
+
+    // the reuse pool only, decoded bitmaps stay cached
+    void clearPool() {
+        mBitmapPool.clear();
+    }
+
+    int getPoolBytes() {
+        return mBitmapPool.getBytes();
+    }
+
+    public int getHitCount() {
+        return mBitmapCache.hitCount();
+    }
+
+    public int getMissCount() {
+        return mBitmapCache.missCount();
+    }
+
+    public int getEvictionCount() {
+        return mBitmapCache.evictionCount();
+    }
+
+    public int getSize() {
+        return mBitmapCache.size();
+    }
+
+    private String buildKey(String scheme, String source, int width, int height) {
+        mKeyBuilder.setLength(0);
+        return mKeyBuilder.append(scheme).append(source).append('@').append(width).append('x').append(height).toString();
+    }
+
+    private Drawable toDrawable(Bitmap bitmap) {
+        return bitmap != null ? new BitmapDrawable(mContext.getResources(), bitmap) : null;
+    }
+
+    private Bitmap decode(int resId, Uri uri, int width, int height) {
+        final Resources resources = mContext.getResources();
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        if (width <= 0 || height <= 0) {
+            // same size as the framework would load it
+            return uri == null ? BitmapFactory.decodeResource(resources, resId, options) : decodeStream(uri, options);
+        }
+
+        // bounds of the raw pixels, the sample size and the pooled bitmap apply to those
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        decodeSource(resources, resId, uri, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        final int sampleSize = calcSampleSize(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inMutable = true;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inBitmap = mBitmapPool.get((options.outWidth + sampleSize - 1) / sampleSize, (options.outHeight + sampleSize - 1) / sampleSize, sampleSize);
+        Bitmap bitmap;
+        try {
+            bitmap = decodeSource(resources, resId, uri, options);
+        } catch (IllegalArgumentException e) {
+            // the pooled bitmap didn't fit after all
+            options.inBitmap = null;
+            bitmap = decodeSource(resources, resId, uri, options);
+        }
+        if (bitmap != null) {
+            // pixels are already at the target size, keep drawables from scaling them again
+            bitmap.setDensity(resources.getDisplayMetrics().densityDpi);
+        }
+        return bitmap;
+    }
+
+    private Bitmap decodeSource(Resources resources, int resId, Uri uri, BitmapFactory.Options options) {
+        if (uri == null) {
+            return BitmapFactory.decodeResource(resources, resId, options);
+        }
+        return decodeStream(uri, options);
+    }
+
+    private Bitmap decodeStream(Uri uri, BitmapFactory.Options options) {
+        InputStream inputStream = null;
+        try {
+            inputStream = mContext.getContentResolver().openInputStream(uri);
+            return BitmapFactory.decodeStream(inputStream, null, options);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    // the largest power of two that keeps both sides at least as big as requested
+    static int calcSampleSize(int sourceWidth, int sourceHeight, int width, int height) {
+        int sampleSize = 1;
+        while (sourceWidth / (sampleSize * 2) >= width && sourceHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+}
@@ -0,0 +1,78 @@
+package com.floating;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+final class FloatingTrace {
+
+    static final String DISPATCH_TOUCH_EVENT = "FloatingView#dispatchTouchEvent";
+
+    static final String ON_TOUCH = "FloatingViewManager#onTouch";
+
+    static final String FLOATING_ANIMATION = "FloatingAnimationHandler#handleMessage";
+
+    static final String CLOSE_ANIMATION = "CloseView.AnimationHandler#handleMessage";
+
+    static final String DO_FRAME = "FrameClock#doFrame";
+
+    static final String UPDATE_VIEW_LAYOUT = "WindowManager#updateViewLayout";
+
+    static final String ADD_VIEW = "WindowManager#addView";
+
+    static final String REMOVE_VIEW_IMMEDIATE = "WindowManager#removeViewImmediate";
+
+    static final String COUNTER_STATE = "FloatingView.state";
+
+    static final String COUNTER_LAYOUT_COMMITS = "FloatingView.layoutCommits";
+
+    // Trace.TRACE_TAG_APP
+    private static final long TRACE_TAG_APP = 1L << 12;
+
+    private static boolean sIsEnabled;
+
+    private static Method sTraceCounter;
+
+    static {
+        // counters are hidden before API 29, compileSdk doesn't know the public setCounter either
+        try {
+            sTraceCounter = Trace.class.getMethod("traceCounter", long.class, String.class, int.class);
+        } catch (Exception e) {
+            sTraceCounter = null;
+        }
+    }
+
+    private FloatingTrace() {
+    }
+
+    static void setEnabled(boolean isEnabled) {
+        sIsEnabled = isEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    static boolean isEnabled() {
+        return sIsEnabled;
+    }
+
+    static void beginSection(String sectionName) {
+        if (sIsEnabled) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    static void endSection() {
+        if (sIsEnabled) {
+            Trace.endSection();
+        }
+    }
+
+    static void setCounter(String counterName, int value) {
+        if (sIsEnabled && sTraceCounter != null) {
+            try {
+                sTraceCounter.invoke(null, TRACE_TAG_APP, counterName, value);
+            } catch (Exception e) {
+                sTraceCounter = null;
+            }
+        }
+    }
+}
@@ -1,26 +1,30 @@
 package com.floating;
 
-import android.animation.TimeInterpolator;
-import android.animation.ValueAnimator;
 import android.content.Context;
-import android.content.res.Configuration;
-import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
+import android.graphics.Shader;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Message;
-import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.util.DisplayMetrics;
 import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
 import android.view.WindowManager;
-import android.view.animation.OvershootInterpolator;
 import android.widget.FrameLayout;
 
 import java.lang.ref.WeakReference;
@@ -30,74 +34,110 @@ import java.lang.ref.WeakReference;
  */
 public class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreDrawListener {
 
-    private static final float MOVE_THRESHOLD_DP = 8.0f;
-
     private static final float SCALE_PRESSED = 0.9f;
 
     private static final float SCALE_NORMAL = 1.0f;
 
-    private static final long MOVE_TO_EDGE_DURATION = 450L;
+    static final int STATE_NORMAL = DragModel.STATE_NORMAL;
+
+    static final int STATE_INTERSECTING = DragModel.STATE_INTERSECTING;
 
-    private static final float MOVE_TO_EDGE_OVERSHOOT_TENSION = 1.25f;
+    static final int STATE_FINISHING = DragModel.STATE_FINISHING;
 
-    private static final float SIDE_CHANGE_THRESHOLD_MILLIS = 0.75f;
+    static final int MOVE_MODE_WINDOW = 1;
 
-    static final int STATE_NORMAL = 0;
+    static final int MOVE_MODE_TRANSLATION = 2;
 
-    static final int STATE_INTERSECTING = 1;
+    static final int DRAG_MODE_DEFAULT = DragModel.DRAG_MODE_DEFAULT;
 
-    static final int STATE_FINISHING = 2;
+    static final int DRAG_MODE_LOW_LATENCY = DragModel.DRAG_MODE_LOW_LATENCY;
+
+    private static final float FLING_TO_DISMISS_VELOCITY_DP = 2500.0f;
 
     private final WindowManager mWindowManager;
 
     private final WindowManager.LayoutParams mParams;
 
+    private final DisplayState mDisplayState;
+
     private final DisplayMetrics mMetrics;
 
-    private long mTouchDownTime;
+    // position, limits, tracking and snap, shared with the touch replay
+    private final DragModel mDragModel;
+
+    private final FrameClock.FrameCallback mSnapFrameCallback;
+
+    private boolean mIsDraggable;
 
-    private float mScreenTouchDownX;
+    private float mShape;
 
-    private float mScreenTouchDownY;
+    private final FloatingAnimationHandler mAnimationHandler;
 
-    private boolean mIsMoveAccept;
+    private VelocityTracker mVelocityTracker;
 
-    private float mScreenTouchX;
+    private final FrameClock mFrameClock;
 
-    private float mScreenTouchY;
+    private final LayoutCommitter mLayoutCommitter;
 
-    private float mLocalTouchX;
+    private TouchTraceRecorder mTouchTraceRecorder;
 
-    private float mLocalTouchY;
+    private int mCommittedX;
 
-    private final int mStatusBarHeight;
+    private int mCommittedY;
 
-    private ValueAnimator mMoveEdgeAnimator;
+    private int mCommittedFlags;
 
-    private final TimeInterpolator mMoveEdgeInterpolator;
+    private int mMoveMode;
 
-    private final Rect mMoveLimitRect;
+    private BubbleLayoutStore mLayoutStore;
 
-    private final Rect mPositionLimitRect;
+    private String mLayoutId;
 
-    private boolean mIsDraggable;
+    private boolean mHasRestoredPosition;
 
-    private float mShape;
+    private boolean mIsLayoutRestorePending;
 
-    private final FloatingAnimationHandler mAnimationHandler;
+    private boolean mIsStackFollower;
 
-    private int mOverMargin;
+    private FloatingViewGestureListener mGestureListener;
 
-    private VelocityTracker mVelocityTracker;
+    private GestureClassifier mGestureClassifier;
 
-    private boolean mIsOnRight;
+    private Runnable mGestureTimeoutRunnable;
 
-    FloatingView(final Context context) {
+    private boolean mIsExpanded;
+
+    private final WindowManager.LayoutParams mExpandedParams;
+
+    private int mBubbleWidth;
+
+    private int mBubbleHeight;
+
+    private float mScale;
+
+    private FloatingViewHost mHost;
+
+    // drawable bubbles draw their content themselves instead of through a child view
+    private Drawable mContentDrawable;
+
+    private Paint mContentPaint;
+
+    private Path mContentClipPath;
+
+    private float mContentTranslationX;
+
+    private float mContentTranslationY;
+
+    private float mContentScale;
+
+    FloatingView(final Context context, FrameClock frameClock, LayoutCommitter layoutCommitter, DisplayState displayState) {
         super(context);
+        mLayoutCommitter = layoutCommitter;
         mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
         mParams = new WindowManager.LayoutParams();
-        mMetrics = new DisplayMetrics();
-        mWindowManager.getDefaultDisplay().getMetrics(mMetrics);
+        mDisplayState = displayState;
+        mMetrics = displayState.getMetrics();
+        mDragModel = new DragModel(frameClock.getClock(), mMetrics.density, mMetrics.widthPixels, mMetrics.heightPixels);
         mParams.width = ViewGroup.LayoutParams.WRAP_CONTENT;
         mParams.height = ViewGroup.LayoutParams.WRAP_CONTENT;
         mParams.type = WindowManager.LayoutParams.TYPE_PRIORITY_PHONE;
@@ -106,88 +146,194 @@ public class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreD
                 WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL;
         mParams.format = PixelFormat.TRANSLUCENT;
         mParams.gravity = Gravity.LEFT | Gravity.BOTTOM;
-        mAnimationHandler = new FloatingAnimationHandler(this);
-        mMoveEdgeInterpolator = new OvershootInterpolator(MOVE_TO_EDGE_OVERSHOOT_TENSION);
+        mExpandedParams = new WindowManager.LayoutParams();
+        mMoveMode = MOVE_MODE_WINDOW;
+        mScale = SCALE_NORMAL;
+        mContentScale = SCALE_NORMAL;
+        mAnimationHandler = new FloatingAnimationHandler(this, frameClock);
+        mFrameClock = frameClock;
+        mSnapFrameCallback = new FrameClock.FrameCallback() {
+            @Override
+            public boolean doFrame(long frameTimeMillis) {
+                final boolean isRunning = mDragModel.stepSnap(frameTimeMillis);
+                mParams.x = mDragModel.getX();
+                mParams.y = mDragModel.getY();
+                requestWindowLayout();
+                if (!isRunning) {
+                    collapseWindow();
+                    saveLayout();
+                }
+                return isRunning;
+            }
+        };
+
+        getViewTreeObserver().addOnPreDrawListener(this);
+    }
+
+    // sized by the drawable, there are no children to measure or lay out
+    void setContentDrawable(Drawable drawable) {
+        mContentDrawable = drawable;
+        final int width = getContentWidth();
+        final int height = getContentHeight();
+        drawable.setBounds(0, 0, width, height);
+        drawable.setCallback(this);
+        if (mShape == FloatingViewManager.SHAPE_CIRCLE) {
+            final float radius = Math.min(width, height) / 2.0f;
+            final Bitmap bitmap = drawable instanceof BitmapDrawable ? ((BitmapDrawable) drawable).getBitmap() : null;
+            if (bitmap != null) {
+                // a shaded circle needs no clip, clipPath isn't hardware accelerated before API 18
+                final BitmapShader shader = new BitmapShader(bitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+                final Matrix matrix = new Matrix();
+                matrix.setScale((float) width / bitmap.getWidth(), (float) height / bitmap.getHeight());
+                shader.setLocalMatrix(matrix);
+                mContentPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+                mContentPaint.setShader(shader);
+            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                mContentClipPath = new Path();
+                mContentClipPath.addCircle(width / 2.0f, height / 2.0f, radius, Path.Direction.CW);
+            }
+        }
+        setWillNotDraw(false);
+        requestLayout();
+        invalidate();
+    }
 
-        mMoveLimitRect = new Rect();
-        mPositionLimitRect = new Rect();
+    private int getContentWidth() {
+        return Math.max(mContentDrawable.getIntrinsicWidth(), 0);
+    }
 
-        final Resources resources = context.getResources();
-        final int statusBarHeightId = resources.getIdentifier("status_bar_height", "dimen", "android");
-        if (statusBarHeightId > 0) {
-            mStatusBarHeight = resources.getDimensionPixelSize(statusBarHeightId);
+    private int getContentHeight() {
+        return Math.max(mContentDrawable.getIntrinsicHeight(), 0);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mContentDrawable == null) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        setMeasuredDimension(resolveSize(getContentWidth(), widthMeasureSpec), resolveSize(getContentHeight(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mContentDrawable == null) {
+            return;
+        }
+        // the same translation and scale a child view would get, pivoting on the content's center
+        final int width = getContentWidth();
+        final int height = getContentHeight();
+        final int saveCount = canvas.save();
+        canvas.translate(mContentTranslationX, mContentTranslationY);
+        canvas.scale(mContentScale, mContentScale, width / 2.0f, height / 2.0f);
+        if (mContentPaint != null) {
+            canvas.drawCircle(width / 2.0f, height / 2.0f, Math.min(width, height) / 2.0f, mContentPaint);
         } else {
-            mStatusBarHeight = 0;
+            if (mContentClipPath != null) {
+                canvas.clipPath(mContentClipPath);
+            }
+            mContentDrawable.draw(canvas);
         }
+        canvas.restoreToCount(saveCount);
+    }
 
-        getViewTreeObserver().addOnPreDrawListener(this);
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == mContentDrawable || super.verifyDrawable(who);
+    }
+
+    private void setContentTransform(float translationX, float translationY, float scale) {
+        if (mContentTranslationX != translationX || mContentTranslationY != translationY || mContentScale != scale) {
+            mContentTranslationX = translationX;
+            mContentTranslationY = translationY;
+            mContentScale = scale;
+            invalidate();
+        }
     }
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        updateViewLayout();
+        // the expanded window is not the size of the bubble
+        if (!mIsExpanded) {
+            updateViewLayout();
+        }
     }
 
-    @Override
-    protected void onConfigurationChanged(Configuration newConfig) {
-        super.onConfigurationChanged(newConfig);
-        updateViewLayout();
+    // the manager relayouts every bubble in one frame after the display changed
+    void onDisplayChanged() {
+        if (!mIsExpanded) {
+            updateViewLayout();
+        }
     }
 
     @Override
     public boolean onPreDraw() {
         getViewTreeObserver().removeOnPreDrawListener(this);
-        mParams.x = 0;
-        mParams.y = mMetrics.heightPixels - mStatusBarHeight - getMeasuredHeight();
-        mWindowManager.updateViewLayout(this, mParams);
         mIsDraggable = true;
-        mIsOnRight = false;
-        moveToEdge(false);
+        // the file was still being read when the window was added, only now is it waited for
+        if (mIsLayoutRestorePending) {
+            mIsLayoutRestorePending = false;
+            if (restoreLayout()) {
+                requestWindowLayout();
+            }
+        }
+        if (mHasRestoredPosition) {
+            // already in place since the window was added, unless the screen got smaller meanwhile
+            if (mDragModel.clampToPositionLimit()) {
+                applyDragPosition();
+                saveLayout();
+            }
+            return true;
+        }
+        final int x = 0;
+        final int y = mMetrics.heightPixels - mDisplayState.getStatusBarHeight() - getMeasuredHeight();
+        mDragModel.setPosition(x, y);
+        mDragModel.setOnRight(false);
+        mDragModel.settleAt(x, y, 0, 0, false);
+        applyDragPosition();
+        saveLayout();
         return true;
     }
 
     private void updateViewLayout() {
         cancelAnimation();
-
-        final int oldScreenHeight = mMetrics.heightPixels;
-        final int oldScreenWidth = mMetrics.widthPixels;
-        final int oldPositionLimitHeight = mPositionLimitRect.height();
-
-        mWindowManager.getDefaultDisplay().getMetrics(mMetrics);
-        final int width = getMeasuredWidth();
-        final int height = getMeasuredHeight();
-        final int newScreenWidth = mMetrics.widthPixels;
-        final int newScreenHeight = mMetrics.heightPixels;
-
-        mMoveLimitRect.set(-width, -height * 2, newScreenWidth + width, newScreenHeight + height);
-        mPositionLimitRect.set(-mOverMargin, 0, newScreenWidth - width + mOverMargin, newScreenHeight - mStatusBarHeight - height);
-
-        if (oldScreenWidth != newScreenWidth || oldScreenHeight != newScreenHeight) {
-            if (mParams.x > (newScreenWidth - width) / 2) {
-                mParams.x = mPositionLimitRect.right;
-            } else {
-                mParams.x = mPositionLimitRect.left;
-            }
-
-            final int newY = (int) (mParams.y * mPositionLimitRect.height() / (float) oldPositionLimitHeight + 0.5f);
-            mParams.y = Math.min(Math.max(mPositionLimitRect.top, newY), mPositionLimitRect.bottom);
-            mWindowManager.updateViewLayout(this, mParams);
+        if (mDragModel.layout(mMetrics.widthPixels, mMetrics.heightPixels, mDisplayState.getStatusBarHeight(), getMeasuredWidth(), getMeasuredHeight())) {
+            mParams.x = mDragModel.getX();
+            mParams.y = mDragModel.getY();
+            requestWindowLayout();
+            saveLayout();
         }
-
     }
 
     @Override
     protected void onDetachedFromWindow() {
-        if (mMoveEdgeAnimator != null) {
-            mMoveEdgeAnimator.removeAllUpdateListeners();
+        cancelAnimation();
+        if (mGestureClassifier != null) {
+            mGestureClassifier.onCancel();
+            removeCallbacks(mGestureTimeoutRunnable);
         }
+        mIsExpanded = false;
         super.onDetachedFromWindow();
     }
 
 
     @Override
     public boolean dispatchTouchEvent(@NonNull MotionEvent event) {
+        FloatingTrace.beginSection(FloatingTrace.DISPATCH_TOUCH_EVENT);
+        try {
+            return handleTouchEvent(event);
+        } finally {
+            FloatingTrace.endSection();
+        }
+    }
+
+    private boolean handleTouchEvent(MotionEvent event) {
+        if (mTouchTraceRecorder != null) {
+            mTouchTraceRecorder.record(mDragModel, event);
+        }
+
         if (getVisibility() != View.VISIBLE) {
             return true;
         }
@@ -196,19 +342,21 @@ public class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreD
             return true;
         }
 
-        mScreenTouchX = event.getRawX();
-        mScreenTouchY = event.getRawY();
+        final float screenTouchX = event.getRawX();
+        final float screenTouchY = event.getRawY();
         final int action = event.getAction();
         if (action == MotionEvent.ACTION_DOWN) {
             cancelAnimation();
-            mScreenTouchDownX = mScreenTouchX;
-            mScreenTouchDownY = mScreenTouchY;
-            mLocalTouchX = event.getX();
-            mLocalTouchY = event.getY();
-            mIsMoveAccept = false;
+            mDragModel.onTouchDown(screenTouchX, screenTouchY, event.getX(), event.getY(), event.getEventTime(), event.getDownTime());
             setScale(SCALE_PRESSED);
-            mAnimationHandler.updateTouchPosition(getXByTouch(), getYByTouch());
-            mAnimationHandler.removeMessages(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
+            if (mGestureListener != null) {
+                dispatchGesture(mGestureClassifier.onDown(event.getEventTime(), screenTouchX, screenTouchY));
+            }
+            // moves arrive as they happen instead of batched once per frame
+            if (mDragModel.getDragMode() == DRAG_MODE_LOW_LATENCY && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                requestUnbufferedDispatch(event);
+            }
+            mAnimationHandler.stopAnimation(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
             mAnimationHandler.sendAnimationMessage(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
             if (mVelocityTracker == null) {
                 mVelocityTracker = VelocityTracker.obtain();
@@ -216,37 +364,53 @@ public class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreD
                 mVelocityTracker.clear();
             }
             mVelocityTracker.addMovement(event);
-            mTouchDownTime = event.getDownTime();
         } else if (action == MotionEvent.ACTION_MOVE) {
-            if (mTouchDownTime != event.getDownTime()) {
+            if (!mDragModel.isCurrentGesture(event.getDownTime())) {
                 return true;
             }
-            final float moveThreshold = MOVE_THRESHOLD_DP * mMetrics.density;
-            if (!mIsMoveAccept && Math.abs(mScreenTouchX - mScreenTouchDownX) < moveThreshold && Math.abs(mScreenTouchY - mScreenTouchDownY) < moveThreshold) {
+            if (mGestureListener != null) {
+                dispatchGesture(mGestureClassifier.onMove(event.getEventTime(), screenTouchX, screenTouchY));
+            }
+            if (mDragModel.getDragMode() == DRAG_MODE_LOW_LATENCY) {
+                addTouchSamples(event);
+            }
+            final boolean wasMoveAccept = mDragModel.isMoveAccept();
+            if (!mDragModel.onTouchMove(screenTouchX, screenTouchY, event.getEventTime())) {
                 return true;
             }
-            mIsMoveAccept = true;
-            mAnimationHandler.updateTouchPosition(getXByTouch(), getYByTouch());
+            if (!wasMoveAccept && mMoveMode == MOVE_MODE_TRANSLATION) {
+                expandWindow();
+            }
+            mAnimationHandler.resumeAnimation();
 
             mVelocityTracker.addMovement(event);
             mVelocityTracker.computeCurrentVelocity(1000);
         } else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
-            if (mTouchDownTime != event.getDownTime()) {
+            if (!mDragModel.isCurrentGesture(event.getDownTime())) {
                 return true;
             }
-            mAnimationHandler.removeMessages(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
+            mAnimationHandler.stopAnimation(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
             setScale(SCALE_NORMAL);
 
-            if (mIsMoveAccept) {
+            float velocityX = 0;
+            float velocityY = 0;
+            if (mDragModel.isMoveAccept()) {
                 mVelocityTracker.addMovement(event);
                 mVelocityTracker.computeCurrentVelocity(1000);
-                moveToEdge(true);
-            } else {
-                final int size = getChildCount();
-                for (int i = size - 1; i >= 0; i--) {
-                    if (getChildAt(i).performClick()) {
-                        break;
-                    }
+                velocityX = mVelocityTracker.getXVelocity();
+                velocityY = mVelocityTracker.getYVelocity();
+            }
+            if (mDragModel.onTouchUp(screenTouchX, screenTouchY, velocityX, velocityY)) {
+                startSnap();
+            } else if (mGestureListener == null) {
+                performContentClick();
+            }
+            if (mGestureListener != null) {
+                if (action == MotionEvent.ACTION_UP) {
+                    dispatchGesture(mGestureClassifier.onUp(event.getEventTime(), velocityX, velocityY));
+                } else {
+                    mGestureClassifier.onCancel();
+                    removeCallbacks(mGestureTimeoutRunnable);
                 }
             }
 
@@ -256,103 +420,169 @@ public class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreD
                 mVelocityTracker = null;
             }
 
+            if (mIsExpanded) {
+                if (mDragModel.isSnapping()) {
+                    // let touches through while the content settles
+                    mExpandedParams.flags |= WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+                    mLayoutCommitter.updateViewLayout(mWindowManager, this, mExpandedParams);
+                } else {
+                    collapseWindow();
+                }
+            }
+
         }
 
         return super.dispatchTouchEvent(event);
     }
 
+    // the classifier only says what happened, the timeouts it waits for are posted here
+    private void dispatchGesture(int gesture) {
+        final View contentView = getContentView();
+        switch (gesture) {
+            case GestureClassifier.GESTURE_TAP:
+                performContentClick();
+                mGestureListener.onTap(contentView);
+                break;
+            case GestureClassifier.GESTURE_DOUBLE_TAP:
+                mGestureListener.onDoubleTap(contentView);
+                break;
+            case GestureClassifier.GESTURE_LONG_PRESS:
+                mGestureListener.onLongPress(contentView);
+                break;
+            case GestureClassifier.GESTURE_FLING:
+                mGestureListener.onFling(contentView, mGestureClassifier.getVelocityX(), mGestureClassifier.getVelocityY());
+                break;
+            case GestureClassifier.GESTURE_FLING_TO_DISMISS:
+                mGestureListener.onFlingToDismiss(contentView, mGestureClassifier.getVelocityX(), mGestureClassifier.getVelocityY());
+                break;
+            default:
+                break;
+        }
+        removeCallbacks(mGestureTimeoutRunnable);
+        final long deadline = mGestureClassifier.getNextDeadline();
+        if (deadline >= 0) {
+            postDelayed(mGestureTimeoutRunnable, Math.max(deadline - mFrameClock.uptimeMillis(), 0));
+        }
+    }
+
+    // with a gesture listener the click waits until the tap is confirmed, so a double tap does not click twice
+    private void performContentClick() {
+        final int size = getChildCount();
+        for (int i = size - 1; i >= 0; i--) {
+            if (getChildAt(i).performClick()) {
+                break;
+            }
+        }
+    }
+
+    // batched moves carry the samples before the current one, the raw offset is the same for all of them
+    private void addTouchSamples(MotionEvent event) {
+        final float offsetX = event.getRawX() - event.getX();
+        final float offsetY = event.getRawY() - event.getY();
+        final int historySize = event.getHistorySize();
+        for (int i = 0; i < historySize; i++) {
+            mDragModel.addTouchSample(event.getHistoricalEventTime(i), event.getHistoricalX(i) + offsetX, event.getHistoricalY(i) + offsetY);
+        }
+    }
+
     @Override
     public void setVisibility(int visibility) {
         if (visibility != View.VISIBLE) {
             cancelLongPress();
             setScale(SCALE_NORMAL);
-            if (mIsMoveAccept) {
-                moveToEdge(false);
+            if (mDragModel.isMoveAccept()) {
+                mDragModel.settle(0, 0, false);
+                applyDragPosition();
+                saveLayout();
             }
-            mAnimationHandler.removeMessages(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
+            mAnimationHandler.stopAnimation(FloatingAnimationHandler.ANIMATION_IN_TOUCH);
+            collapseWindow();
         }
         super.setVisibility(visibility);
     }
 
-    private void moveToEdge(float velocityX, float velocityY) {
-        final int currentX = getXByTouch();
-        final int centerOfScreen = (mMetrics.widthPixels - getWidth()) / 2;
-        final int futureX = (int) (velocityX * SIDE_CHANGE_THRESHOLD_MILLIS);
+    // grows the window over the whole move area once per drag, the content then follows by translation
+    private void expandWindow() {
+        // bubbles in the shared host window already move by translation
+        if (mIsExpanded || mHost != null || getWindowToken() == null) {
+            return;
+        }
+        mBubbleWidth = getWidth();
+        mBubbleHeight = getHeight();
+        mExpandedParams.copyFrom(mParams);
+        mExpandedParams.x = mDragModel.getMoveLimitLeft();
+        mExpandedParams.y = mDragModel.getMoveLimitTop();
+        mExpandedParams.width = mDragModel.getMoveLimitRight() - mDragModel.getMoveLimitLeft() + mBubbleWidth;
+        mExpandedParams.height = mDragModel.getMoveLimitBottom() - mDragModel.getMoveLimitTop() + mBubbleHeight;
+        mIsExpanded = true;
+        setScaleX(SCALE_NORMAL);
+        setScaleY(SCALE_NORMAL);
+        setScale(mScale);
+        mLayoutCommitter.updateViewLayout(mWindowManager, this, mExpandedParams);
+        updateContentTranslation();
+    }
 
-        boolean isMoveRightEdge = mIsOnRight;
-        if (isMoveRightEdge) {
-            if (currentX < centerOfScreen || currentX + futureX < centerOfScreen) {
-                isMoveRightEdge = false;
-            }
-        } else {
-            if (currentX > centerOfScreen || currentX + futureX > centerOfScreen) {
-                isMoveRightEdge = true;
-            }
+    private void collapseWindow() {
+        if (!mIsExpanded) {
+            return;
         }
-        final int goalPositionX = isMoveRightEdge ? mPositionLimitRect.right : mPositionLimitRect.left;
-        mIsOnRight = isMoveRightEdge;
-        mMoveEdgeAnimator = ValueAnimator.ofInt(currentX, goalPositionX);
-        mMoveEdgeAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                mParams.x = (Integer) animation.getAnimatedValue();
-                mWindowManager.updateViewLayout(FloatingView.this, mParams);
-            }
-        });
-        mMoveEdgeAnimator.setDuration(MOVE_TO_EDGE_DURATION);
-        mMoveEdgeAnimator.setInterpolator(new OvershootInterpolator(Math.min(Math.max(Math.abs(velocityX) / 3000 * 2.0f, MOVE_TO_EDGE_OVERSHOOT_TENSION), 4.0f)));
-        mMoveEdgeAnimator.start();
-        mLocalTouchX = 0;
-        mLocalTouchY = 0;
-        mScreenTouchDownX = 0;
-        mScreenTouchDownY = 0;
-        mIsMoveAccept = false;
-    }
-
-    private void moveToEdge(boolean withAnimation) {
-        final int currentX = getXByTouch();
-        final int currentY = getYByTouch();
-        final boolean isMoveRightEdge = currentX > (mMetrics.widthPixels - getWidth()) / 2;
-        final int goalPositionX = isMoveRightEdge ? mPositionLimitRect.right : mPositionLimitRect.left;
-        final int goalPositionY = Math.min(Math.max(mPositionLimitRect.top, currentY), mPositionLimitRect.bottom);
-        mIsOnRight = isMoveRightEdge;
-
-        if (withAnimation) {
-            mParams.y = goalPositionY;
-            mMoveEdgeAnimator = ValueAnimator.ofInt(currentX, goalPositionX);
-            mMoveEdgeAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    mParams.x = (Integer) animation.getAnimatedValue();
-                    mWindowManager.updateViewLayout(FloatingView.this, mParams);
-                }
-            });
-            mMoveEdgeAnimator.setDuration(MOVE_TO_EDGE_DURATION);
-            mMoveEdgeAnimator.setInterpolator(mMoveEdgeInterpolator);
-            mMoveEdgeAnimator.start();
-        } else {
-            if (mParams.x != goalPositionX || mParams.y != goalPositionY) {
-                mParams.x = goalPositionX;
-                mParams.y = goalPositionY;
-                mWindowManager.updateViewLayout(FloatingView.this, mParams);
-            }
+        mIsExpanded = false;
+        if (mContentDrawable != null) {
+            setContentTransform(0, 0, SCALE_NORMAL);
+        }
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final View targetView = getChildAt(i);
+            targetView.setTranslationX(0);
+            targetView.setTranslationY(0);
+            targetView.setScaleX(SCALE_NORMAL);
+            targetView.setScaleY(SCALE_NORMAL);
         }
-        mLocalTouchX = 0;
-        mLocalTouchY = 0;
-        mScreenTouchDownX = 0;
-        mScreenTouchDownY = 0;
-        mIsMoveAccept = false;
+        setScale(mScale);
+        mLayoutCommitter.updateViewLayout(mWindowManager, this, mParams);
+        onWindowAdded();
+    }
+
+    private void updateContentTranslation() {
+        final float translationX = mParams.x - mExpandedParams.x;
+        final float translationY = mExpandedParams.y + mExpandedParams.height - mParams.y - mBubbleHeight;
+        if (mContentDrawable != null) {
+            setContentTransform(translationX, translationY, mContentScale);
+            return;
+        }
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final View targetView = getChildAt(i);
+            targetView.setTranslationX(translationX);
+            targetView.setTranslationY(translationY);
+        }
+    }
+
+    // the model set up the snap, the frames are driven from here
+    private void startSnap() {
+        mFrameClock.addFrameCallback(mSnapFrameCallback);
     }
 
     private void cancelAnimation() {
-        if (mMoveEdgeAnimator != null && mMoveEdgeAnimator.isStarted()) {
-            mMoveEdgeAnimator.cancel();
-            mMoveEdgeAnimator = null;
+        if (mDragModel.cancelSnap()) {
+            mFrameClock.removeFrameCallback(mSnapFrameCallback);
+        }
+    }
+
+    // mirror a position the model settled on outside of a frame
+    private void applyDragPosition() {
+        if (mParams.x != mDragModel.getX() || mParams.y != mDragModel.getY()) {
+            mParams.x = mDragModel.getX();
+            mParams.y = mDragModel.getY();
+            requestWindowLayout();
         }
     }
 
     private void setScale(float newScale) {
-        if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.KITKAT) {
+        mScale = newScale;
+        if (mContentDrawable != null && (Build.VERSION.SDK_INT <= Build.VERSION_CODES.KITKAT || mIsExpanded)) {
+            setContentTransform(mContentTranslationX, mContentTranslationY, newScale);
+        } else if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.KITKAT || mIsExpanded) {
             final int childCount = getChildCount();
             for (int i = 0; i < childCount; i++) {
                 final View targetView = getChildAt(i);
@@ -378,180 +608,294 @@ public class FloatingView extends FrameLayout implements ViewTreeObserver.OnPreD
     }
 
     void setOverMargin(int margin) {
-        mOverMargin = margin;
+        mDragModel.setOverMargin(margin);
     }
 
-    void getWindowDrawingRect(Rect outRect) {
-        final int currentX = getXByTouch();
-        final int currentY = getYByTouch();
-        outRect.set(currentX, currentY, currentX + getWidth(), currentY + getHeight());
+    void setTouchTraceRecorder(TouchTraceRecorder recorder) {
+        mTouchTraceRecorder = recorder;
     }
 
-    WindowManager.LayoutParams getWindowLayoutParams() {
-        return mParams;
+    void setTrackingCurve(EasingCurve curve) {
+        mDragModel.setTrackingCurve(curve);
     }
 
-    private int getXByTouch() {
-        return (int) (mScreenTouchX - mLocalTouchX);
+    void setEdgeSnapCurve(EasingCurve curve) {
+        mDragModel.setEdgeSnapCurve(curve);
     }
 
-    private int getYByTouch() {
-        return (int) (mMetrics.heightPixels - (mScreenTouchY - mLocalTouchY + getHeight()));
+    void setMoveMode(int moveMode) {
+        mMoveMode = moveMode;
     }
 
-    void setNormal() {
-        mAnimationHandler.setState(STATE_NORMAL);
-        mAnimationHandler.updateTouchPosition(getXByTouch(), getYByTouch());
+    void setDragMode(int dragMode) {
+        mDragModel.setDragMode(dragMode);
     }
 
-    void setIntersecting(int centerX, int centerY) {
-        mAnimationHandler.setState(STATE_INTERSECTING);
-        mAnimationHandler.updateTargetPosition(centerX, centerY);
+    void setGestureListener(FloatingViewGestureListener listener) {
+        mGestureListener = listener;
+        if (listener == null) {
+            if (mGestureClassifier != null) {
+                mGestureClassifier.onCancel();
+                removeCallbacks(mGestureTimeoutRunnable);
+            }
+            return;
+        }
+        if (mGestureClassifier == null) {
+            final ViewConfiguration viewConfiguration = ViewConfiguration.get(getContext());
+            mGestureClassifier = new GestureClassifier(FloatingMath.MOVE_THRESHOLD_DP * mMetrics.density,
+                    ViewConfiguration.getLongPressTimeout(),
+                    ViewConfiguration.getDoubleTapTimeout(),
+                    viewConfiguration.getScaledMinimumFlingVelocity(),
+                    FLING_TO_DISMISS_VELOCITY_DP * mMetrics.density);
+            mGestureTimeoutRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    if (mGestureListener != null) {
+                        dispatchGesture(mGestureClassifier.poll(mFrameClock.uptimeMillis()));
+                    }
+                }
+            };
+        }
     }
 
-    void setFinishing() {
-        mAnimationHandler.setState(STATE_FINISHING);
-        setVisibility(View.GONE);
+    void setMetrics(FloatingViewMetrics metrics) {
+        mDragModel.setMetrics(metrics);
     }
 
-    int getState() {
-        return mAnimationHandler.getState();
+    void setStackFollower(boolean isStackFollower) {
+        mIsStackFollower = isStackFollower;
     }
 
-    static class FloatingAnimationHandler extends Handler {
+    // followers of a stack are placed by the stack, not by their own snap
+    void setStackPosition(int x, int y) {
+        if (mParams.x != x || mParams.y != y) {
+            cancelAnimation();
+            mDragModel.setPosition(x, y);
+            applyDragPosition();
+        }
+    }
 
-        private static final long ANIMATION_REFRESH_TIME_MILLIS = 17L;
+    void setHost(FloatingViewHost host) {
+        mHost = host;
+    }
 
-        private static final long CAPTURE_DURATION_MILLIS = 300L;
+    int getBubbleWidth() {
+        return mIsExpanded ? mBubbleWidth : getWidth();
+    }
 
-        private static final int ANIMATION_NONE = 0;
+    int getBubbleHeight() {
+        return mIsExpanded ? mBubbleHeight : getHeight();
+    }
 
-        private static final int ANIMATION_IN_TOUCH = 1;
+    void setSnapAnchors(SnapAnchors snapAnchors) {
+        mDragModel.setSnapAnchors(snapAnchors);
+    }
 
-        private static final int TYPE_FIRST = 1;
+    void getWindowDrawingRect(Rect outRect) {
+        final int currentX = mDragModel.getXByTouch();
+        final int currentY = mDragModel.getYByTouch();
+        outRect.set(currentX, currentY, currentX + getBubbleWidth(), currentY + getBubbleHeight());
+    }
 
-        private static final int TYPE_UPDATE = 2;
+    WindowManager.LayoutParams getWindowLayoutParams() {
+        return mParams;
+    }
 
-        private long mStartTime;
+    View getContentView() {
+        return getChildCount() > 0 ? getChildAt(0) : this;
+    }
 
-        private float mStartX;
+    private void requestWindowLayout() {
+        mLayoutCommitter.requestCommit(this);
+    }
 
-        private float mStartY;
+    // applied before the window is added when the file is already read, the first frame then shows the saved position
+    void setLayoutStore(BubbleLayoutStore layoutStore, String layoutId) {
+        mLayoutStore = layoutStore;
+        mLayoutId = layoutId;
+        if (layoutStore.isLoaded()) {
+            restoreLayout();
+        } else {
+            mIsLayoutRestorePending = true;
+        }
+    }
 
-        private int mStartedCode;
+    private boolean restoreLayout() {
+        final BubbleLayoutStore.Entry entry = mLayoutStore.get(mLayoutId);
+        if (entry == null) {
+            return false;
+        }
+        mParams.x = entry.x;
+        mParams.y = entry.y;
+        mDragModel.setPosition(entry.x, entry.y);
+        mDragModel.setOnRight(entry.isOnRight);
+        mHasRestoredPosition = true;
+        return true;
+    }
 
-        private int mState;
+    // called where a gesture or snap comes to rest, followers are placed by the stack and never saved
+    private void saveLayout() {
+        if (mLayoutStore != null && mIsDraggable && !mIsStackFollower && !mDragModel.isMoveAccept() && !mDragModel.isSnapping()) {
+            mLayoutStore.put(mLayoutId, mParams.x, mParams.y, mDragModel.isOnRight());
+        }
+    }
 
-        private boolean mIsChangeState;
+    // a bubble removed for good does not come back at its old position
+    void removeLayout() {
+        if (mLayoutStore != null) {
+            mLayoutStore.remove(mLayoutId);
+        }
+    }
 
-        private float mTouchPositionX;
+    void onWindowAdded() {
+        mCommittedX = mParams.x;
+        mCommittedY = mParams.y;
+        mCommittedFlags = mParams.flags;
+    }
 
-        private float mTouchPositionY;
+    void commitWindowLayout() {
+        if (mIsExpanded) {
+            updateContentTranslation();
+            return;
+        }
+        if (mCommittedX == mParams.x && mCommittedY == mParams.y && mCommittedFlags == mParams.flags) {
+            return;
+        }
+        // a hidden bubble whose window was released, it is added again with these params
+        if (mHost == null && getParent() == null) {
+            return;
+        }
+        if (mHost != null) {
+            mLayoutCommitter.commitHostTranslation(this);
+        } else {
+            mLayoutCommitter.commitViewLayout(mWindowManager, this, mParams);
+        }
+        onWindowAdded();
+    }
+
+    void applyHostTranslation() {
+        setTranslationX(mParams.x);
+        setTranslationY(mHost.getHeight() - mParams.y - getHeight());
+    }
 
-        private float mTargetPositionX;
+    void setNormal() {
+        final int oldState = mDragModel.getState();
+        mDragModel.setNormal();
+        onStateChanged(oldState);
+    }
 
-        private float mTargetPositionY;
+    void setIntersecting(int centerX, int centerY) {
+        final int oldState = mDragModel.getState();
+        mDragModel.setIntersecting(centerX, centerY);
+        onStateChanged(oldState);
+    }
+
+    void setFinishing() {
+        final int oldState = mDragModel.getState();
+        mDragModel.setFinishing();
+        onStateChanged(oldState);
+        setVisibility(View.GONE);
+    }
+
+    private void onStateChanged(int oldState) {
+        final int state = mDragModel.getState();
+        if (state != oldState) {
+            FloatingTrace.setCounter(FloatingTrace.COUNTER_STATE, state);
+        }
+        mAnimationHandler.resumeAnimation();
+    }
+
+    int getState() {
+        return mDragModel.getState();
+    }
+
+    static class FloatingAnimationHandler extends Handler implements FrameClock.FrameCallback {
+
+        private static final int ANIMATION_NONE = 0;
+
+        private static final int ANIMATION_IN_TOUCH = 1;
+
+        private int mStartedCode;
+
+        private boolean mIsRunning;
+
+        private final FrameClock mFrameClock;
 
         private final WeakReference<FloatingView> mFloatingView;
 
-        FloatingAnimationHandler(FloatingView floatingView) {
+        FloatingAnimationHandler(FloatingView floatingView, FrameClock frameClock) {
             mFloatingView = new WeakReference<>(floatingView);
+            mFrameClock = frameClock;
             mStartedCode = ANIMATION_NONE;
-            mState = STATE_NORMAL;
         }
 
         @Override
         public void handleMessage(Message msg) {
             final FloatingView floatingView = mFloatingView.get();
             if (floatingView == null) {
-                removeMessages(ANIMATION_IN_TOUCH);
+                stopAnimation(ANIMATION_IN_TOUCH);
                 return;
             }
+            FloatingTrace.beginSection(FloatingTrace.FLOATING_ANIMATION);
 
-            final int animationCode = msg.what;
-            final int animationType = msg.arg1;
-            final WindowManager.LayoutParams params = floatingView.mParams;
-            final WindowManager windowManager = floatingView.mWindowManager;
-
-            if (mIsChangeState || animationType == TYPE_FIRST) {
-                mStartTime = mIsChangeState ? SystemClock.uptimeMillis() : 0;
-                mStartX = params.x;
-                mStartY = params.y;
-                mStartedCode = animationCode;
-                mIsChangeState = false;
-            }
-            final float elapsedTime = SystemClock.uptimeMillis() - mStartTime;
-            final float trackingTargetTimeRate = Math.min(elapsedTime / CAPTURE_DURATION_MILLIS, 1.0f);
-
-            if (mState == FloatingView.STATE_NORMAL) {
-                final float basePosition = calcAnimationPosition(trackingTargetTimeRate);
-                final Rect moveLimitRect = floatingView.mMoveLimitRect;
-                final float targetPositionX = Math.min(Math.max(moveLimitRect.left, (int) mTouchPositionX), moveLimitRect.right);
-                final float targetPositionY = Math.min(Math.max(moveLimitRect.top, (int) mTouchPositionY), moveLimitRect.bottom);
-                params.x = (int) (mStartX + (targetPositionX - mStartX) * basePosition);
-                params.y = (int) (mStartY + (targetPositionY - mStartY) * basePosition);
-                windowManager.updateViewLayout(floatingView, params);
-                sendMessageAtTime(newMessage(animationCode, TYPE_UPDATE), SystemClock.uptimeMillis() + ANIMATION_REFRESH_TIME_MILLIS);
-            } else if (mState == FloatingView.STATE_INTERSECTING) {
-                final float basePosition = calcAnimationPosition(trackingTargetTimeRate);
-                final float targetPositionX = mTargetPositionX - floatingView.getWidth() / 2;
-                final float targetPositionY = mTargetPositionY - floatingView.getHeight() / 2;
-                params.x = (int) (mStartX + (targetPositionX - mStartX) * basePosition);
-                params.y = (int) (mStartY + (targetPositionY - mStartY) * basePosition);
-                windowManager.updateViewLayout(floatingView, params);
-                sendMessageAtTime(newMessage(animationCode, TYPE_UPDATE), SystemClock.uptimeMillis() + ANIMATION_REFRESH_TIME_MILLIS);
-            }
-
+            floatingView.mDragModel.startTracking();
+            mStartedCode = msg.what;
+            mIsRunning = true;
+            mFrameClock.addFrameCallback(this);
+            FloatingTrace.endSection();
         }
 
-        private static float calcAnimationPosition(float timeRate) {
-            final float position;
-            // y=0.55sin(8.0564x-π/2)+0.55
-            if (timeRate <= 0.4) {
-                position = (float) (0.55 * Math.sin(8.0564 * timeRate - Math.PI / 2) + 0.55);
+        @Override
+        public boolean doFrame(long frameTimeMillis) {
+            final FloatingView floatingView = mFloatingView.get();
+            if (floatingView == null || mStartedCode == ANIMATION_NONE) {
+                mStartedCode = ANIMATION_NONE;
+                mIsRunning = false;
+                return false;
+            }
+
+            final DragModel dragModel = floatingView.mDragModel;
+            final boolean hasNext = dragModel.stepTracking(frameTimeMillis);
+            floatingView.applyDragPosition();
+            if (!dragModel.isTrackingAwake()) {
+                mIsRunning = false;
             }
-            // y=4(0.417x-0.341)^2-4(0.417-0.341)^2+1
-            else {
-                position = (float) (4 * Math.pow(0.417 * timeRate - 0.341, 2) - 4 * Math.pow(0.417 - 0.341, 2) + 1);
+            if (dragModel.getState() == STATE_FINISHING) {
+                mStartedCode = ANIMATION_NONE;
             }
-            return position;
+            return hasNext;
         }
 
-        void sendAnimationMessageDelayed(int animation, long delayMillis) {
-            sendMessageAtTime(newMessage(animation, TYPE_FIRST), SystemClock.uptimeMillis() + delayMillis);
+        // the model woke up for a new target while the tracker slept
+        void resumeAnimation() {
+            final FloatingView floatingView = mFloatingView.get();
+            if (floatingView != null && mStartedCode != ANIMATION_NONE && !mIsRunning && floatingView.mDragModel.isTrackingAwake()) {
+                mIsRunning = true;
+                mFrameClock.addFrameCallback(this);
+            }
         }
 
-
         void sendAnimationMessage(int animation) {
-            sendMessage(newMessage(animation, TYPE_FIRST));
+            sendMessage(newMessage(animation));
         }
 
-        private static Message newMessage(int animation, int type) {
-            final Message message = Message.obtain();
-            message.what = animation;
-            message.arg1 = type;
-            return message;
-        }
-
-        void updateTouchPosition(float positionX, float positionY) {
-            mTouchPositionX = positionX;
-            mTouchPositionY = positionY;
-        }
-
-        void updateTargetPosition(float centerX, float centerY) {
-            mTargetPositionX = centerX;
-            mTargetPositionY = centerY;
-        }
-
-        void setState(int newState) {
-            if (mState != newState) {
-                mIsChangeState = true;
+        void stopAnimation(int animation) {
+            removeMessages(animation);
+            if (mStartedCode == animation) {
+                mStartedCode = ANIMATION_NONE;
+                mIsRunning = false;
+                mFrameClock.removeFrameCallback(this);
+                final FloatingView floatingView = mFloatingView.get();
+                if (floatingView != null) {
+                    floatingView.mDragModel.stopTracking();
+                }
             }
-            mState = newState;
         }
 
-        int getState() {
-            return mState;
+        private static Message newMessage(int animation) {
+            final Message message = Message.obtain();
+            message.what = animation;
+            return message;
         }
     }
 }
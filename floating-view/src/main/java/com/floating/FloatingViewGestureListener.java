@@ -0,0 +1,18 @@
+package com.floating;
+
+import android.view.View;
+
+public interface FloatingViewGestureListener {
+
+    // once no second tap followed, the content view gets performClick at the same time
+    void onTap(View view);
+
+    void onDoubleTap(View view);
+
+    void onLongPress(View view);
+
+    // velocities in px/s
+    void onFling(View view, float velocityX, float velocityY);
+
+    void onFlingToDismiss(View view, float velocityX, float velocityY);
+}
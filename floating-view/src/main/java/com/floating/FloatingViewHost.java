@@ -0,0 +1,176 @@
+package com.floating;
+
+import android.content.Context;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.Region;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.view.WindowManager;
+import android.widget.FrameLayout;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+class FloatingViewHost extends FrameLayout {
+
+    // ViewTreeObserver.InternalInsetsInfo.TOUCHABLE_INSETS_REGION
+    private static final int TOUCHABLE_INSETS_REGION = 3;
+
+    private static Class<?> sInsetsListenerClass;
+
+    private static Method sAddInsetsListener;
+
+    private static Method sRemoveInsetsListener;
+
+    private static Method sSetTouchableInsets;
+
+    private static Field sTouchableRegion;
+
+    // set once the hidden API was found but refused at runtime, e.g. by hidden API enforcement
+    private static boolean sIsRejected;
+
+    static {
+        // the touchable region of a window is only reachable through the hidden insets listener
+        try {
+            sInsetsListenerClass = Class.forName("android.view.ViewTreeObserver$OnComputeInternalInsetsListener");
+            final Class<?> insetsInfoClass = Class.forName("android.view.ViewTreeObserver$InternalInsetsInfo");
+            sAddInsetsListener = ViewTreeObserver.class.getMethod("addOnComputeInternalInsetsListener", sInsetsListenerClass);
+            sRemoveInsetsListener = ViewTreeObserver.class.getMethod("removeOnComputeInternalInsetsListener", sInsetsListenerClass);
+            sSetTouchableInsets = insetsInfoClass.getMethod("setTouchableInsets", int.class);
+            sTouchableRegion = insetsInfoClass.getField("touchableRegion");
+        } catch (Exception e) {
+            sAddInsetsListener = null;
+        }
+    }
+
+    private final WindowManager.LayoutParams mParams;
+
+    private final Object mInsetsListener;
+
+    private final Rect mChildRect;
+
+    private Runnable mInsetsFailedCallback;
+
+    FloatingViewHost(Context context) {
+        super(context);
+        mParams = new WindowManager.LayoutParams();
+        mParams.width = ViewGroup.LayoutParams.MATCH_PARENT;
+        mParams.height = ViewGroup.LayoutParams.MATCH_PARENT;
+        mParams.type = WindowManager.LayoutParams.TYPE_PRIORITY_PHONE;
+        mParams.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
+                WindowManager.LayoutParams.FLAG_LAYOUT_NO_LIMITS |
+                WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN |
+                WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL;
+        mParams.format = PixelFormat.TRANSLUCENT;
+        mParams.gravity = Gravity.LEFT | Gravity.BOTTOM;
+        mChildRect = new Rect();
+        mInsetsListener = Proxy.newProxyInstance(sInsetsListenerClass.getClassLoader(), new Class<?>[]{sInsetsListenerClass}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                final String name = method.getName();
+                if (name.equals("onComputeInternalInsets")) {
+                    onComputeInternalInsets(args[0]);
+                    return null;
+                } else if (name.equals("equals")) {
+                    return proxy == args[0];
+                } else if (name.equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                return FloatingViewHost.class.getName();
+            }
+        });
+    }
+
+    static boolean isSupported() {
+        return sAddInsetsListener != null && !sIsRejected;
+    }
+
+    /**
+     * Registers the touchable region before the window is added, the observer is merged on attach.
+     * A host that returns false must not be added, its window would take every touch on the screen.
+     */
+    boolean registerTouchableRegion() {
+        try {
+            sAddInsetsListener.invoke(getViewTreeObserver(), mInsetsListener);
+            return true;
+        } catch (Exception e) {
+            sIsRejected = true;
+            return false;
+        }
+    }
+
+    // posted when the region can't be computed anymore, the bubbles have to leave this window
+    void setInsetsFailedCallback(Runnable callback) {
+        mInsetsFailedCallback = callback;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        try {
+            sRemoveInsetsListener.invoke(getViewTreeObserver(), mInsetsListener);
+        } catch (Exception e) {
+            // the window is gone either way
+        }
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        // bubble positions are measured from the bottom of the window
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            ((FloatingView) getChildAt(i)).applyHostTranslation();
+        }
+    }
+
+    void addFloatingView(FloatingView floatingView) {
+        floatingView.setHost(this);
+        addView(floatingView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.LEFT | Gravity.TOP));
+    }
+
+    void removeFloatingView(FloatingView floatingView) {
+        removeView(floatingView);
+        floatingView.setHost(null);
+        floatingView.setTranslationX(0);
+        floatingView.setTranslationY(0);
+    }
+
+    WindowManager.LayoutParams getWindowLayoutParams() {
+        return mParams;
+    }
+
+    private void onComputeInternalInsets(Object insetsInfo) {
+        if (sIsRejected) {
+            return;
+        }
+        try {
+            computeTouchableRegion(insetsInfo);
+        } catch (Exception e) {
+            sIsRejected = true;
+            if (mInsetsFailedCallback != null) {
+                post(mInsetsFailedCallback);
+            }
+        }
+    }
+
+    // only the bubbles take touches, everything else falls through to the windows below
+    private void computeTouchableRegion(Object insetsInfo) throws Exception {
+        final Region touchableRegion = (Region) sTouchableRegion.get(insetsInfo);
+        touchableRegion.setEmpty();
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == View.VISIBLE) {
+                child.getHitRect(mChildRect);
+                touchableRegion.op(mChildRect, Region.Op.UNION);
+            }
+        }
+        sSetTouchableInsets.invoke(insetsInfo, TOUCHABLE_INSETS_REGION);
+    }
+}
@@ -1,14 +1,23 @@
 package com.floating;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
 import android.os.Vibrator;
+import android.util.DisplayMetrics;
+import android.view.Display;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 
 /**
@@ -22,8 +31,34 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
 
     public static final int DISPLAY_MODE_HIDE_FULLSCREEN = 3;
 
+    public static final int MOVE_MODE_WINDOW = FloatingView.MOVE_MODE_WINDOW;
+
+    public static final int MOVE_MODE_TRANSLATION = FloatingView.MOVE_MODE_TRANSLATION;
+
+    public static final int DRAG_MODE_DEFAULT = FloatingView.DRAG_MODE_DEFAULT;
+
+    public static final int DRAG_MODE_LOW_LATENCY = FloatingView.DRAG_MODE_LOW_LATENCY;
+
+    public static final int TRIM_LEVEL_CACHES = MemoryTrimPolicy.TRIM_LEVEL_CACHES;
+
+    public static final int TRIM_LEVEL_IMAGES = MemoryTrimPolicy.TRIM_LEVEL_IMAGES;
+
+    public static final int TRIM_LEVEL_HIDDEN = MemoryTrimPolicy.TRIM_LEVEL_HIDDEN;
+
+    public static final int TRIM_RELEASED_BITMAP_POOL = 1;
+
+    public static final int TRIM_RELEASED_IMAGE_CACHE = 1 << 1;
+
+    public static final int TRIM_RELEASED_TRASH_ICONS = 1 << 2;
+
+    public static final int TRIM_RELEASED_HIDDEN_WINDOWS = 1 << 3;
+
     private static final long VIBRATE_INTERSECTS_MILLIS = 15;
 
+    private static final int DROP_ZONE_CELL_SIZE_DP = 64;
+
+    private static final int TRASH_DROP_ZONE = 0;
+
     public static final float SHAPE_CIRCLE = 1.0f;
 
     public static final float SHAPE_RECTANGLE = 1.4142f;
@@ -48,8 +83,98 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
 
     private int mDisplayMode;
 
+    private int mMoveMode;
+
+    private int mDragMode;
+
     private final ArrayList<FloatingView> mFloatingViewList;
 
+    private final ArrayList<DropZone> mDropZoneList;
+
+    private final DropZoneIndex mDropZoneIndex;
+
+    private final Rect mDropZoneRect;
+
+    private boolean mIsDropZoneIndexDirty;
+
+    private int mDropZoneIndexWidth;
+
+    private int mDropZoneIndexHeight;
+
+    private int mTrashBoundsVersion;
+
+    private int mCurrentDropZone;
+
+    private EasingCurve mTrackingCurve;
+
+    private EasingCurve mEdgeSnapCurve;
+
+    private SnapAnchors mSnapAnchors;
+
+    private final Clock mClock;
+
+    private final DisplayState mDisplayState;
+
+    private int mLaidOutDisplayVersion;
+
+    private final FrameClock.FrameCallback mDisplayFrameCallback;
+
+    private final ComponentCallbacks2 mComponentCallbacks;
+
+    private DisplayManager.DisplayListener mDisplayListener;
+
+    private boolean mIsDisplayCallbacksRegistered;
+
+    private final FrameClock mFrameClock;
+
+    private final LayoutCommitter mLayoutCommitter;
+
+    private boolean mIsHostModeEnabled;
+
+    private FloatingViewHost mFloatingViewHost;
+
+    private FullscreenObserverView mFullscreenObserverView;
+
+    private boolean mIsFullscreen;
+
+    private boolean mIsInTransaction;
+
+    private final ArrayList<FloatingView> mPendingFloatingViewList;
+
+    private final FrameClock.FrameCallback mTransactionFrameCallback;
+
+    private FloatingViewTransactionListener mTransactionListener;
+
+    private FloatingImageCache mImageCache;
+
+    private BubbleStackController mBubbleStackController;
+
+    private MetricsRecorder mMetricsRecorder;
+
+    private boolean mIsCloseViewAttached;
+
+    private long mCloseViewAttachedTime;
+
+    private long mCloseViewAttachedMillis;
+
+    private TouchTraceRecorder mTouchTraceRecorder;
+
+    private BubbleLayoutStore mLayoutStore;
+
+    private FloatingViewGestureListener mGestureListener;
+
+    private int mFixedTrashIconResId;
+
+    private int mActionTrashIconResId;
+
+    private boolean mIsTrashIconReleased;
+
+    private final ArrayList<FloatingView> mReleasedFloatingViewList;
+
+    private final int[] mTrimCounts;
+
+    private FloatingViewTrimListener mTrimListener;
+
     public FloatingViewManager(Context context, FloatingViewListener listener) {
         mContext = context;
         mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
@@ -59,31 +184,122 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
         mVibrator = (Vibrator) context.getSystemService(Context.VIBRATOR_SERVICE);
         mIsMoveAccept = false;
         mDisplayMode = DISPLAY_MODE_HIDE_FULLSCREEN;
+        mMoveMode = MOVE_MODE_WINDOW;
+        mDragMode = DRAG_MODE_DEFAULT;
 
         mFloatingViewList = new ArrayList<>();
-        mCloseView = new CloseView(context);
+        mPendingFloatingViewList = new ArrayList<>();
+        mReleasedFloatingViewList = new ArrayList<>();
+        mTrimCounts = new int[MemoryTrimPolicy.TRIM_LEVEL_COUNT];
+        mDropZoneList = new ArrayList<>();
+        mDropZoneIndex = new DropZoneIndex((int) (DROP_ZONE_CELL_SIZE_DP * context.getResources().getDisplayMetrics().density));
+        mDropZoneRect = new Rect();
+        mIsDropZoneIndexDirty = true;
+        mCurrentDropZone = DropZoneIndex.NO_ZONE;
+        mClock = new AndroidClock();
+        mFrameClock = new FrameClock(mClock);
+        mLayoutCommitter = new LayoutCommitter(mFrameClock, mClock);
+        mDisplayState = new DisplayState(mWindowManager, context.getResources());
+        mLaidOutDisplayVersion = mDisplayState.getVersion();
+        mDisplayFrameCallback = new FrameClock.FrameCallback() {
+            @Override
+            public boolean doFrame(long frameTimeMillis) {
+                relayoutForDisplay();
+                return false;
+            }
+        };
+        mComponentCallbacks = new ComponentCallbacks2() {
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+                invalidateDisplayState();
+            }
+
+            @Override
+            public void onLowMemory() {
+                trimMemory(MemoryTrimPolicy.TRIM_LEVEL_HIDDEN);
+            }
+
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(MemoryTrimPolicy.toTrimLevel(level));
+            }
+        };
+        mCloseView = new CloseView(context, mFrameClock, mLayoutCommitter, mDisplayState);
+        mTransactionFrameCallback = new FrameClock.FrameCallback() {
+            @Override
+            public boolean doFrame(long frameTimeMillis) {
+                if (!mIsInTransaction) {
+                    flushTransaction();
+                }
+                return false;
+            }
+        };
     }
 
-    private boolean isIntersectWithTrash() {
-        mCloseView.getWindowDrawingRect(mTrashViewRect);
+    private int findDropZone() {
+        updateDropZoneIndex();
         mTargetFloatingView.getWindowDrawingRect(mFloatingViewRect);
-        return Rect.intersects(mTrashViewRect, mFloatingViewRect);
+        if (mTargetFloatingView.getShape() == SHAPE_CIRCLE) {
+            final float radius = Math.min(mFloatingViewRect.width(), mFloatingViewRect.height()) / 2.0f;
+            return mDropZoneIndex.findCircle(mFloatingViewRect.exactCenterX(), mFloatingViewRect.exactCenterY(), radius);
+        }
+        return mDropZoneIndex.findRect(mFloatingViewRect.left, mFloatingViewRect.top, mFloatingViewRect.right, mFloatingViewRect.bottom);
+    }
+
+    private void updateDropZoneIndex() {
+        final int trashBoundsVersion = mCloseView.getTrashBoundsVersion();
+        if (!mIsDropZoneIndexDirty && trashBoundsVersion == mTrashBoundsVersion) {
+            return;
+        }
+        final DisplayMetrics metrics = mDisplayState.getMetrics();
+        if (metrics.widthPixels != mDropZoneIndexWidth || metrics.heightPixels != mDropZoneIndexHeight) {
+            mIsDropZoneIndexDirty = true;
+        }
+        mCloseView.getWindowDrawingRect(mTrashViewRect);
+        if (mIsDropZoneIndexDirty) {
+            // drop zones are given in screen coordinates, the index works in window coordinates (y from the bottom)
+            mDropZoneIndexWidth = metrics.widthPixels;
+            mDropZoneIndexHeight = metrics.heightPixels;
+            mDropZoneIndex.reset(mDropZoneIndexWidth, mDropZoneIndexHeight);
+            mDropZoneIndex.add(mTrashViewRect.left, mTrashViewRect.top, mTrashViewRect.right, mTrashViewRect.bottom);
+            final int size = mDropZoneList.size();
+            for (int i = 0; i < size; i++) {
+                mDropZoneList.get(i).getBounds(mDropZoneRect);
+                mDropZoneIndex.add(mDropZoneRect.left, mDropZoneIndexHeight - mDropZoneRect.bottom, mDropZoneRect.right, mDropZoneIndexHeight - mDropZoneRect.top);
+            }
+            mIsDropZoneIndexDirty = false;
+        } else {
+            mDropZoneIndex.update(TRASH_DROP_ZONE, mTrashViewRect.left, mTrashViewRect.top, mTrashViewRect.right, mTrashViewRect.bottom);
+        }
+        mTrashBoundsVersion = trashBoundsVersion;
+    }
+
+    private void setCurrentDropZone(int dropZone) {
+        if (mCurrentDropZone == dropZone) {
+            return;
+        }
+        if (mCurrentDropZone > TRASH_DROP_ZONE) {
+            final DropZone exitZone = mDropZoneList.get(mCurrentDropZone - 1);
+            exitZone.getDropZoneListener().onDropZoneExit(exitZone, mTargetFloatingView.getContentView());
+        }
+        mCurrentDropZone = dropZone;
+        if (mCurrentDropZone > TRASH_DROP_ZONE) {
+            final DropZone enterZone = mDropZoneList.get(mCurrentDropZone - 1);
+            enterZone.getDropZoneListener().onDropZoneEnter(enterZone, mTargetFloatingView.getContentView());
+        }
     }
 
     @Override
     public void onScreenChanged(boolean isFullscreen) {
-        if (mDisplayMode != DISPLAY_MODE_HIDE_FULLSCREEN) {
+        // kept in every mode, only transitions are reported
+        mIsFullscreen = isFullscreen;
+        if (mDisplayMode != DISPLAY_MODE_HIDE_FULLSCREEN || mTargetFloatingView == null) {
             return;
         }
-
         mIsMoveAccept = false;
         final int state = mTargetFloatingView.getState();
         if (state == FloatingView.STATE_NORMAL) {
-            final int size = mFloatingViewList.size();
-            for (int i = 0; i < size; i++) {
-                final FloatingView floatingView = mFloatingViewList.get(i);
-                floatingView.setVisibility(isFullscreen ? View.GONE : View.VISIBLE);
-            }
+            setFloatingViewsVisibility(isFullscreen ? View.GONE : View.VISIBLE);
             mCloseView.dismiss();
         } else if (state == FloatingView.STATE_INTERSECTING) {
             mTargetFloatingView.setFinishing();
@@ -91,6 +307,20 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
         }
     }
 
+    // bubbles already showing the right visibility are left alone
+    private void setFloatingViewsVisibility(int visibility) {
+        if (visibility == View.VISIBLE) {
+            restoreReleasedFloatingViews();
+        }
+        final int size = mFloatingViewList.size();
+        for (int i = 0; i < size; i++) {
+            final FloatingView floatingView = mFloatingViewList.get(i);
+            if (floatingView.getVisibility() != visibility) {
+                floatingView.setVisibility(visibility);
+            }
+        }
+    }
+
     @Override
     public void onCloseAnimationStarted(int animationCode) {
         if (animationCode == CloseView.ANIMATION_CLOSE || animationCode == CloseView.ANIMATION_FORCE_CLOSE) {
@@ -116,10 +346,23 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
             floatingView.setDraggable(true);
         }
 
+        // a new drag may have started while the trash was closing
+        if (!mIsMoveAccept) {
+            detachCloseView();
+        }
     }
 
     @Override
     public boolean onTouch(View v, MotionEvent event) {
+        FloatingTrace.beginSection(FloatingTrace.ON_TOUCH);
+        try {
+            return handleTouch((FloatingView) v, event);
+        } finally {
+            FloatingTrace.endSection();
+        }
+    }
+
+    private boolean handleTouch(FloatingView floatingView, MotionEvent event) {
         final int action = event.getAction();
 
         if (action != MotionEvent.ACTION_DOWN && !mIsMoveAccept) {
@@ -127,12 +370,25 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
         }
 
         final int state = mTargetFloatingView.getState();
-        mTargetFloatingView = (FloatingView) v;
+        mTargetFloatingView = floatingView;
 
         if (action == MotionEvent.ACTION_DOWN) {
             mIsMoveAccept = true;
+            if (mMetricsRecorder != null) {
+                mMetricsRecorder.onGestureStart();
+            }
+            // attached on touch down, the open delay hides the cost of adding the window
+            attachCloseView();
+            // the touched bubble leads the stack
+            if (mBubbleStackController != null) {
+                mBubbleStackController.setChain(mTargetFloatingView, mFloatingViewList);
+            }
         } else if (action == MotionEvent.ACTION_MOVE) {
-            final boolean isIntersecting = isIntersectWithTrash();
+            if (mMetricsRecorder != null) {
+                mMetricsRecorder.getMetrics().recordTouchToMove(event.getEventTime() - event.getDownTime());
+            }
+            final int dropZone = findDropZone();
+            final boolean isIntersecting = dropZone == TRASH_DROP_ZONE;
             final boolean isIntersect = state == FloatingView.STATE_INTERSECTING;
             if (isIntersecting) {
                 mTargetFloatingView.setIntersecting((int) mCloseView.getTrashIconCenterX(), (int) mCloseView.getTrashIconCenterY());
@@ -144,13 +400,28 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
                 mTargetFloatingView.setNormal();
                 mCloseView.setScaleTrashIcon(false);
             }
+            setCurrentDropZone(dropZone);
 
         } else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
             if (state == FloatingView.STATE_INTERSECTING) {
                 mTargetFloatingView.setFinishing();
                 mCloseView.setScaleTrashIcon(false);
             }
+            if (mCurrentDropZone > TRASH_DROP_ZONE && action == MotionEvent.ACTION_UP) {
+                final DropZone dropZone = mDropZoneList.get(mCurrentDropZone - 1);
+                dropZone.getDropZoneListener().onDropZoneDrop(dropZone, mTargetFloatingView.getContentView());
+                mCurrentDropZone = DropZoneIndex.NO_ZONE;
+            } else {
+                setCurrentDropZone(DropZoneIndex.NO_ZONE);
+            }
             mIsMoveAccept = false;
+            if (mMetricsRecorder != null) {
+                mMetricsRecorder.onGestureEnd();
+            }
+        }
+
+        if (mBubbleStackController != null) {
+            mBubbleStackController.wake();
         }
 
         if (state == FloatingView.STATE_INTERSECTING) {
@@ -164,44 +435,313 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
     }
 
 
+    /**
+     * Decodes the trash icons through the given cache, so they can share memory with the bubble content.
+     */
+    public void setImageCache(FloatingImageCache imageCache) {
+        mImageCache = imageCache;
+    }
+
     public void setFixedTrashIconImage(int resId) {
-        mCloseView.setFixedTrashIconImage(resId);
+        mFixedTrashIconResId = resId;
+        final Drawable drawable = mImageCache != null ? mImageCache.getDrawable(resId, 0, 0) : null;
+        if (drawable != null) {
+            mCloseView.setFixedTrashIconImage(drawable);
+        } else {
+            mCloseView.setFixedTrashIconImage(resId);
+        }
     }
 
     public void setActionTrashIconImage(int resId) {
-        mCloseView.setActionTrashIconImage(resId);
+        mActionTrashIconResId = resId;
+        final Drawable drawable = mImageCache != null ? mImageCache.getDrawable(resId, 0, 0) : null;
+        if (drawable != null) {
+            mCloseView.setActionTrashIconImage(drawable);
+        } else {
+            mCloseView.setActionTrashIconImage(resId);
+        }
     }
 
     public void setFixedTrashIconImage(Drawable drawable) {
+        mFixedTrashIconResId = 0;
         mCloseView.setFixedTrashIconImage(drawable);
     }
 
     public void setActionTrashIconImage(Drawable drawable) {
+        mActionTrashIconResId = 0;
         mCloseView.setActionTrashIconImage(drawable);
     }
 
+    public void setTrackingCurve(EasingCurve curve) {
+        mTrackingCurve = curve;
+        for (FloatingView floatingView : mFloatingViewList) {
+            floatingView.setTrackingCurve(curve);
+        }
+        for (FloatingView floatingView : mPendingFloatingViewList) {
+            floatingView.setTrackingCurve(curve);
+        }
+    }
+
+    public void setEdgeSnapCurve(EasingCurve curve) {
+        mEdgeSnapCurve = curve;
+        for (FloatingView floatingView : mFloatingViewList) {
+            floatingView.setEdgeSnapCurve(curve);
+        }
+        for (FloatingView floatingView : mPendingFloatingViewList) {
+            floatingView.setEdgeSnapCurve(curve);
+        }
+    }
+
+    /**
+     * Lets bubbles rest on the given anchors instead of the left and right edges, null restores edge docking.
+     */
+    public void setSnapAnchors(SnapAnchors snapAnchors) {
+        mSnapAnchors = snapAnchors;
+        for (FloatingView floatingView : mFloatingViewList) {
+            floatingView.setSnapAnchors(snapAnchors);
+        }
+        for (FloatingView floatingView : mPendingFloatingViewList) {
+            floatingView.setSnapAnchors(snapAnchors);
+        }
+    }
+
+    public void setTrashOpenCurve(EasingCurve curve) {
+        mCloseView.setTrashOpenCurve(curve);
+    }
+
+    /**
+     * Draws the CloseView's gradient and trash icons in a single view instead of its five-view hierarchy,
+     * so the open and close animations never need an offscreen layer.
+     */
+    public void setCloseViewFlattened(boolean isFlattened) {
+        mCloseView.setFlattened(isFlattened);
+    }
+
+    /**
+     * Reports every onTrimMemory the manager acted on with the trim level it applied and the TRIM_RELEASED_ flags
+     * of what it released. Released resources are rebuilt on the next touch, or when hidden bubbles are shown again.
+     */
+    public void setTrimListener(FloatingViewTrimListener listener) {
+        mTrimListener = listener;
+    }
+
+    /**
+     * Number of times the given TRIM_LEVEL_ was applied so far.
+     */
+    public int getTrimCount(int trimLevel) {
+        return mTrimCounts[trimLevel];
+    }
+
+    /**
+     * MOVE_MODE_TRANSLATION grows a bubble's window once per drag and moves its content by translation
+     * instead of relayouting the window on every frame.
+     */
+    public void setMoveMode(int moveMode) {
+        mMoveMode = moveMode;
+        for (FloatingView floatingView : mFloatingViewList) {
+            floatingView.setMoveMode(moveMode);
+        }
+        for (FloatingView floatingView : mPendingFloatingViewList) {
+            floatingView.setMoveMode(moveMode);
+        }
+    }
+
+    /**
+     * DRAG_MODE_LOW_LATENCY reads every batched touch sample, asks for unbuffered input on API 21 and later
+     * and places the bubble where the finger is predicted to be on the next frame.
+     * Compare getMeanDragLatencyMillis() of the gesture metrics between the modes.
+     */
+    public void setDragMode(int dragMode) {
+        mDragMode = dragMode;
+        for (FloatingView floatingView : mFloatingViewList) {
+            floatingView.setDragMode(dragMode);
+        }
+        for (FloatingView floatingView : mPendingFloatingViewList) {
+            floatingView.setDragMode(dragMode);
+        }
+    }
+
+    /**
+     * Puts every bubble into one shared overlay window, takes effect from the next first bubble.
+     * Falls back to a window per bubble where the touchable region of a window can't be set.
+     */
+    public void setHostModeEnabled(boolean enabled) {
+        mIsHostModeEnabled = enabled;
+    }
+
+    /**
+     * Stacks the bubbles behind the one last dragged, they trail it when it moves.
+     */
+    public void setStackMode(boolean enabled) {
+        if (enabled && mBubbleStackController == null) {
+            mBubbleStackController = new BubbleStackController(mFrameClock, mDisplayState.getMetrics());
+            updateStackChain();
+        } else if (!enabled && mBubbleStackController != null) {
+            mBubbleStackController.stop();
+            mBubbleStackController = null;
+        }
+    }
+
+    public void expandStack() {
+        if (mBubbleStackController != null) {
+            mBubbleStackController.setExpanded(true);
+        }
+    }
+
+    public void collapseStack() {
+        if (mBubbleStackController != null) {
+            mBubbleStackController.setExpanded(false);
+        }
+    }
+
+    public boolean isStackExpanded() {
+        return mBubbleStackController != null && mBubbleStackController.isExpanded();
+    }
+
+    private void updateStackChain() {
+        if (mBubbleStackController == null) {
+            return;
+        }
+        final FloatingView leader = mFloatingViewList.contains(mTargetFloatingView) ? mTargetFloatingView
+                : mFloatingViewList.isEmpty() ? null : mFloatingViewList.get(0);
+        mBubbleStackController.setChain(leader, mFloatingViewList);
+    }
+
+    public void addDropZone(DropZone dropZone) {
+        if (!mDropZoneList.contains(dropZone)) {
+            mDropZoneList.add(dropZone);
+            dropZone.setManager(this);
+            invalidateDropZones();
+        }
+    }
+
+    public void removeDropZone(DropZone dropZone) {
+        if (mDropZoneList.remove(dropZone)) {
+            dropZone.setManager(null);
+            mCurrentDropZone = DropZoneIndex.NO_ZONE;
+            invalidateDropZones();
+        }
+    }
+
+    public void invalidateDropZones() {
+        mIsDropZoneIndexDirty = true;
+    }
+
     public void setDisplayMode(int displayMode) {
         mDisplayMode = displayMode;
-        if (mDisplayMode == DISPLAY_MODE_SHOW_ALWAYS || mDisplayMode == DISPLAY_MODE_HIDE_FULLSCREEN) {
-            for (FloatingView floatingView : mFloatingViewList) {
-                floatingView.setVisibility(View.VISIBLE);
-            }
-        } else if (mDisplayMode == DISPLAY_MODE_HIDE_ALWAYS) {
-            for (FloatingView floatingView : mFloatingViewList) {
-                floatingView.setVisibility(View.GONE);
-            }
+        if (mDisplayMode == DISPLAY_MODE_SHOW_ALWAYS || (mDisplayMode == DISPLAY_MODE_HIDE_FULLSCREEN && !mIsFullscreen)) {
+            setFloatingViewsVisibility(View.VISIBLE);
+        } else {
+            setFloatingViewsVisibility(View.GONE);
             mCloseView.dismiss();
         }
     }
 
+    /**
+     * Queues the following addViewToWindow calls until commitTransaction.
+     */
+    public void beginTransaction() {
+        mIsInTransaction = true;
+    }
+
+    /**
+     * Attaches the queued views on the next frame and re-layers the CloseView at most once for all of them.
+     */
+    public void commitTransaction() {
+        mIsInTransaction = false;
+        if (!mPendingFloatingViewList.isEmpty()) {
+            mFrameClock.addFrameCallback(mTransactionFrameCallback);
+        }
+    }
+
+    public void setTransactionListener(FloatingViewTransactionListener listener) {
+        mTransactionListener = listener;
+    }
+
+    public void addViewsToWindow(View[] views, float shape, int overMargin) {
+        final boolean isInTransaction = mIsInTransaction;
+        beginTransaction();
+        for (View view : views) {
+            addViewToWindow(view, shape, overMargin);
+        }
+        if (!isInTransaction) {
+            commitTransaction();
+        }
+    }
+
     public void addViewToWindow(View view, float shape, int overMargin) {
-        final boolean isFirstAttach = mFloatingViewList.isEmpty();
-        final FloatingView floatingView = new FloatingView(mContext);
+        addViewToWindow(view, shape, overMargin, null);
+    }
+
+    /**
+     * Adds a bubble that comes back where the bubble with the same id was last left, see setLayoutStoreFile.
+     */
+    public void addViewToWindow(View view, float shape, int overMargin, String id) {
+        final FloatingView floatingView = createFloatingView(shape, overMargin);
         floatingView.addView(view);
         view.setClickable(false);
+        addFloatingViewToWindow(floatingView, id);
+    }
+
+    public void addDrawableToWindow(Drawable drawable, float shape, int overMargin) {
+        addDrawableToWindow(drawable, shape, overMargin, null);
+    }
+
+    /**
+     * Adds a bubble that draws the drawable at its intrinsic size itself, clipped to the shape, without a child view.
+     * It has no content view to click, taps are reported through setGestureListener.
+     */
+    public void addDrawableToWindow(Drawable drawable, float shape, int overMargin, String id) {
+        final FloatingView floatingView = createFloatingView(shape, overMargin);
+        floatingView.setContentDrawable(drawable);
+        addFloatingViewToWindow(floatingView, id);
+    }
+
+    private void addFloatingViewToWindow(FloatingView floatingView, String id) {
+        if (id != null && mLayoutStore != null) {
+            floatingView.setLayoutStore(mLayoutStore, id);
+        }
+        if (mIsInTransaction) {
+            mPendingFloatingViewList.add(floatingView);
+            return;
+        }
+        final boolean isFirstAttach = mFloatingViewList.isEmpty();
+        attachFloatingView(floatingView, isFirstAttach);
+        relayerCloseView();
+        updateStackChain();
+    }
+
+    private void flushTransaction() {
+        final int size = mPendingFloatingViewList.size();
+        if (size == 0) {
+            return;
+        }
+        final long startTime = mClock.nanoTime();
+        final boolean isFirstAttach = mFloatingViewList.isEmpty();
+        for (int i = 0; i < size; i++) {
+            attachFloatingView(mPendingFloatingViewList.get(i), isFirstAttach && i == 0);
+        }
+        mPendingFloatingViewList.clear();
+        relayerCloseView();
+        updateStackChain();
+        if (mTransactionListener != null) {
+            mTransactionListener.onTransactionCommitted(size, mClock.nanoTime() - startTime);
+        }
+    }
+
+    private FloatingView createFloatingView(float shape, int overMargin) {
+        final FloatingView floatingView = new FloatingView(mContext, mFrameClock, mLayoutCommitter, mDisplayState);
         floatingView.setOnTouchListener(this);
         floatingView.setShape(shape);
         floatingView.setOverMargin(overMargin);
+        floatingView.setTrackingCurve(mTrackingCurve);
+        floatingView.setEdgeSnapCurve(mEdgeSnapCurve);
+        floatingView.setSnapAnchors(mSnapAnchors);
+        floatingView.setMoveMode(mMoveMode);
+        floatingView.setDragMode(mDragMode);
+        floatingView.setGestureListener(mGestureListener);
+        floatingView.setMetrics(mMetricsRecorder != null ? mMetricsRecorder.getMetrics() : null);
+        floatingView.setTouchTraceRecorder(mTouchTraceRecorder);
         floatingView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
             @Override
             public boolean onPreDraw() {
@@ -210,29 +750,328 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
                 return false;
             }
         });
-        if (mDisplayMode == DISPLAY_MODE_HIDE_ALWAYS) {
+        return floatingView;
+    }
+
+    private void attachFloatingView(FloatingView floatingView, boolean isFirstAttach) {
+        if (mDisplayMode == DISPLAY_MODE_HIDE_ALWAYS || (mDisplayMode == DISPLAY_MODE_HIDE_FULLSCREEN && mIsFullscreen)) {
             floatingView.setVisibility(View.GONE);
         }
         mFloatingViewList.add(floatingView);
         mCloseView.setTrashViewListener(this);
 
-        mWindowManager.addView(floatingView, floatingView.getWindowLayoutParams());
         if (isFirstAttach) {
-            mTargetFloatingView = floatingView;
+            attachFullscreenObserverView();
+            registerDisplayCallbacks();
+        }
+
+        if (isFirstAttach && mIsHostModeEnabled && FloatingViewHost.isSupported()) {
+            attachFloatingViewHost();
+        }
+        if (mFloatingViewHost != null) {
+            mFloatingViewHost.addFloatingView(floatingView);
         } else {
+            FloatingTrace.beginSection(FloatingTrace.ADD_VIEW);
+            mWindowManager.addView(floatingView, floatingView.getWindowLayoutParams());
+            FloatingTrace.endSection();
+        }
+        floatingView.onWindowAdded();
+        if (isFirstAttach) {
+            mTargetFloatingView = floatingView;
+        }
+    }
+
+    private void relayerCloseView() {
+        // the host window is already below the CloseView, single windows have to be re-layered
+        if (mIsCloseViewAttached && mFloatingViewHost == null) {
+            FloatingTrace.beginSection(FloatingTrace.REMOVE_VIEW_IMMEDIATE);
             mWindowManager.removeViewImmediate(mCloseView);
+            FloatingTrace.endSection();
+            FloatingTrace.beginSection(FloatingTrace.ADD_VIEW);
+            mWindowManager.addView(mCloseView, mCloseView.getWindowLayoutParams());
+            FloatingTrace.endSection();
+        }
+    }
+
+    private void attachCloseView() {
+        if (mIsCloseViewAttached) {
+            return;
         }
+        restoreTrashIcons();
+        FloatingTrace.beginSection(FloatingTrace.ADD_VIEW);
         mWindowManager.addView(mCloseView, mCloseView.getWindowLayoutParams());
+        FloatingTrace.endSection();
+        mIsCloseViewAttached = true;
+        mCloseViewAttachedTime = mClock.uptimeMillis();
+    }
+
+    private void detachCloseView() {
+        if (!mIsCloseViewAttached) {
+            return;
+        }
+        FloatingTrace.beginSection(FloatingTrace.REMOVE_VIEW_IMMEDIATE);
+        mWindowManager.removeViewImmediate(mCloseView);
+        FloatingTrace.endSection();
+        mIsCloseViewAttached = false;
+        mCloseViewAttachedMillis += mClock.uptimeMillis() - mCloseViewAttachedTime;
+    }
+
+    private void detachFloatingView(FloatingView floatingView) {
+        mLayoutCommitter.cancelCommit(floatingView);
+        if (mReleasedFloatingViewList.remove(floatingView)) {
+            return;
+        }
+        if (mFloatingViewHost != null) {
+            mFloatingViewHost.removeFloatingView(floatingView);
+        } else {
+            FloatingTrace.beginSection(FloatingTrace.REMOVE_VIEW_IMMEDIATE);
+            mWindowManager.removeViewImmediate(floatingView);
+            FloatingTrace.endSection();
+        }
+    }
+
+    private void attachFullscreenObserverView() {
+        if (mFullscreenObserverView != null) {
+            return;
+        }
+        mFullscreenObserverView = new FullscreenObserverView(mContext, mFrameClock, this);
+        FloatingTrace.beginSection(FloatingTrace.ADD_VIEW);
+        mWindowManager.addView(mFullscreenObserverView, mFullscreenObserverView.getWindowLayoutParams());
+        FloatingTrace.endSection();
+    }
+
+    private void detachFullscreenObserverView() {
+        if (mFullscreenObserverView != null) {
+            FloatingTrace.beginSection(FloatingTrace.REMOVE_VIEW_IMMEDIATE);
+            mWindowManager.removeViewImmediate(mFullscreenObserverView);
+            FloatingTrace.endSection();
+            mFullscreenObserverView = null;
+            mIsFullscreen = false;
+        }
+    }
+
+    private void registerDisplayCallbacks() {
+        if (mIsDisplayCallbacksRegistered) {
+            return;
+        }
+        mIsDisplayCallbacksRegistered = true;
+        mContext.getApplicationContext().registerComponentCallbacks(mComponentCallbacks);
+        // size changes without a configuration change, e.g. multi-window or an external display mode switch
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            if (mDisplayListener == null) {
+                mDisplayListener = new DisplayManager.DisplayListener() {
+                    @Override
+                    public void onDisplayAdded(int displayId) {
+                    }
+
+                    @Override
+                    public void onDisplayRemoved(int displayId) {
+                    }
+
+                    @Override
+                    public void onDisplayChanged(int displayId) {
+                        if (displayId == Display.DEFAULT_DISPLAY) {
+                            invalidateDisplayState();
+                        }
+                    }
+                };
+            }
+            final DisplayManager displayManager = (DisplayManager) mContext.getSystemService(Context.DISPLAY_SERVICE);
+            displayManager.registerDisplayListener(mDisplayListener, null);
+        }
+        // whatever changed while nothing was listening
+        invalidateDisplayState();
+    }
+
+    private void unregisterDisplayCallbacks() {
+        if (!mIsDisplayCallbacksRegistered) {
+            return;
+        }
+        mIsDisplayCallbacksRegistered = false;
+        mContext.getApplicationContext().unregisterComponentCallbacks(mComponentCallbacks);
+        if (mDisplayListener != null) {
+            final DisplayManager displayManager = (DisplayManager) mContext.getSystemService(Context.DISPLAY_SERVICE);
+            displayManager.unregisterDisplayListener(mDisplayListener);
+        }
+        mFrameClock.removeFrameCallback(mDisplayFrameCallback);
+    }
+
+    // bursts of callbacks are read once on the next frame
+    private void invalidateDisplayState() {
+        mDisplayState.invalidate();
+        mFrameClock.addFrameCallback(mDisplayFrameCallback);
+    }
+
+    // every bubble is laid out in the same frame, the window updates go out together in its commit phase
+    private void relayoutForDisplay() {
+        final int displayVersion = mDisplayState.getVersion();
+        if (displayVersion == mLaidOutDisplayVersion) {
+            return;
+        }
+        mLaidOutDisplayVersion = displayVersion;
+        final int size = mFloatingViewList.size();
+        for (int i = 0; i < size; i++) {
+            mFloatingViewList.get(i).onDisplayChanged();
+        }
+        mCloseView.onDisplayChanged();
+        mIsDropZoneIndexDirty = true;
+        if (mBubbleStackController != null) {
+            mBubbleStackController.wake();
+        }
+    }
+
+    private void trimMemory(int trimLevel) {
+        if (trimLevel == MemoryTrimPolicy.TRIM_LEVEL_NONE) {
+            return;
+        }
+        // bitmaps still drawn by a view stay reachable after eviction, so only what was released is reported, not bytes
+        int releasedResources = 0;
+        if (mImageCache != null && mImageCache.getPoolBytes() > 0) {
+            mImageCache.clearPool();
+            releasedResources |= TRIM_RELEASED_BITMAP_POOL;
+        }
+        if (trimLevel >= MemoryTrimPolicy.TRIM_LEVEL_IMAGES) {
+            // a CloseView on screen is in use, its icons are dropped only while detached
+            if (!mIsCloseViewAttached && releaseTrashIcons()) {
+                releasedResources |= TRIM_RELEASED_TRASH_ICONS;
+            }
+            if (mImageCache != null && mImageCache.getSize() > 0) {
+                mImageCache.evictAll();
+                releasedResources |= TRIM_RELEASED_IMAGE_CACHE;
+            }
+        }
+        if (trimLevel >= MemoryTrimPolicy.TRIM_LEVEL_HIDDEN && releaseHiddenFloatingViews()) {
+            releasedResources |= TRIM_RELEASED_HIDDEN_WINDOWS;
+        }
+        mTrimCounts[trimLevel]++;
+        if (mTrimListener != null) {
+            mTrimListener.onMemoryTrimmed(trimLevel, releasedResources);
+        }
+    }
+
+    // only icons set from resources can be loaded again
+    private boolean releaseTrashIcons() {
+        boolean isReleased = false;
+        if (mFixedTrashIconResId != 0) {
+            isReleased |= mCloseView.releaseFixedTrashIcon();
+            mIsTrashIconReleased = true;
+        }
+        if (mActionTrashIconResId != 0) {
+            isReleased |= mCloseView.releaseActionTrashIcon();
+            mIsTrashIconReleased = true;
+        }
+        return isReleased;
+    }
+
+    private void restoreTrashIcons() {
+        if (!mIsTrashIconReleased) {
+            return;
+        }
+        mIsTrashIconReleased = false;
+        if (mFixedTrashIconResId != 0) {
+            setFixedTrashIconImage(mFixedTrashIconResId);
+        }
+        if (mActionTrashIconResId != 0) {
+            setActionTrashIconImage(mActionTrashIconResId);
+        }
+    }
+
+    // hidden single-window bubbles give up their window, its renderer and display lists, until they are shown again
+    private boolean releaseHiddenFloatingViews() {
+        if (mFloatingViewHost != null) {
+            return false;
+        }
+        boolean isReleased = false;
+        final int size = mFloatingViewList.size();
+        for (int i = 0; i < size; i++) {
+            final FloatingView floatingView = mFloatingViewList.get(i);
+            if (floatingView.getVisibility() == View.VISIBLE || mReleasedFloatingViewList.contains(floatingView)) {
+                continue;
+            }
+            mLayoutCommitter.cancelCommit(floatingView);
+            FloatingTrace.beginSection(FloatingTrace.REMOVE_VIEW_IMMEDIATE);
+            mWindowManager.removeViewImmediate(floatingView);
+            FloatingTrace.endSection();
+            mReleasedFloatingViewList.add(floatingView);
+            isReleased = true;
+        }
+        return isReleased;
+    }
+
+    private void restoreReleasedFloatingViews() {
+        final int size = mReleasedFloatingViewList.size();
+        if (size == 0) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            final FloatingView floatingView = mReleasedFloatingViewList.get(i);
+            FloatingTrace.beginSection(FloatingTrace.ADD_VIEW);
+            mWindowManager.addView(floatingView, floatingView.getWindowLayoutParams());
+            FloatingTrace.endSection();
+            floatingView.onWindowAdded();
+        }
+        mReleasedFloatingViewList.clear();
+        relayerCloseView();
+    }
+
+    // without its touchable region the full screen host would swallow every touch, bubbles get their own windows then
+    private void attachFloatingViewHost() {
+        final FloatingViewHost host = new FloatingViewHost(mContext);
+        if (!host.registerTouchableRegion()) {
+            return;
+        }
+        host.setInsetsFailedCallback(new Runnable() {
+            @Override
+            public void run() {
+                if (mFloatingViewHost == host) {
+                    moveFloatingViewsOutOfHost();
+                }
+            }
+        });
+        mFloatingViewHost = host;
+        FloatingTrace.beginSection(FloatingTrace.ADD_VIEW);
+        mWindowManager.addView(host, host.getWindowLayoutParams());
+        FloatingTrace.endSection();
+    }
+
+    private void moveFloatingViewsOutOfHost() {
+        final FloatingViewHost host = mFloatingViewHost;
+        final int size = mFloatingViewList.size();
+        for (int i = 0; i < size; i++) {
+            final FloatingView floatingView = mFloatingViewList.get(i);
+            mLayoutCommitter.cancelCommit(floatingView);
+            host.removeFloatingView(floatingView);
+            FloatingTrace.beginSection(FloatingTrace.ADD_VIEW);
+            mWindowManager.addView(floatingView, floatingView.getWindowLayoutParams());
+            FloatingTrace.endSection();
+            floatingView.onWindowAdded();
+        }
+        detachFloatingViewHost();
+        relayerCloseView();
+    }
+
+    private void detachFloatingViewHost() {
+        if (mFloatingViewHost != null) {
+            FloatingTrace.beginSection(FloatingTrace.REMOVE_VIEW_IMMEDIATE);
+            mWindowManager.removeViewImmediate(mFloatingViewHost);
+            FloatingTrace.endSection();
+            mFloatingViewHost = null;
+        }
     }
 
     private void removeViewToWindow(FloatingView floatingView) {
         final int matchIndex = mFloatingViewList.indexOf(floatingView);
         if (matchIndex != -1) {
-            mWindowManager.removeViewImmediate(floatingView);
+            detachFloatingView(floatingView);
+            floatingView.removeLayout();
             mFloatingViewList.remove(matchIndex);
+            updateStackChain();
         }
 
         if (mFloatingViewList.isEmpty()) {
+            detachFloatingViewHost();
+            detachFullscreenObserverView();
+            unregisterDisplayCallbacks();
             if (mFloatingViewListener != null) {
                 mFloatingViewListener.onFinishFloatingView();
             }
@@ -240,13 +1079,120 @@ public class FloatingViewManager implements ScreenChangedListener, View.OnTouchL
     }
 
     public void removeAllViewToWindow() {
-        mWindowManager.removeViewImmediate(mCloseView);
+        mFrameClock.removeFrameCallback(mTransactionFrameCallback);
+        mPendingFloatingViewList.clear();
+        detachCloseView();
         final int size = mFloatingViewList.size();
         for (int i = 0; i < size; i++) {
-            final FloatingView floatingView = mFloatingViewList.get(i);
-            mWindowManager.removeViewImmediate(floatingView);
+            detachFloatingView(mFloatingViewList.get(i));
         }
         mFloatingViewList.clear();
+        updateStackChain();
+        detachFloatingViewHost();
+        detachFullscreenObserverView();
+        unregisterDisplayCallbacks();
+    }
+
+    public long getCommittedLayoutCount() {
+        return mLayoutCommitter.getCommittedCount();
+    }
+
+    public long getSkippedLayoutCount() {
+        return mLayoutCommitter.getSkippedCount();
+    }
+
+    /**
+     * Reports frame pacing, window updates and trash timings after every gesture and animation, null stops recording.
+     */
+    public void setMetricsListener(FloatingViewMetricsListener listener) {
+        mMetricsRecorder = listener != null ? new MetricsRecorder(listener, mWindowManager.getDefaultDisplay().getRefreshRate()) : null;
+        final FloatingViewMetrics metrics = mMetricsRecorder != null ? mMetricsRecorder.getMetrics() : null;
+        mFrameClock.setFrameObserver(mMetricsRecorder);
+        mLayoutCommitter.setMetrics(metrics);
+        mCloseView.setMetrics(metrics);
+        for (FloatingView floatingView : mFloatingViewList) {
+            floatingView.setMetrics(metrics);
+        }
+        for (FloatingView floatingView : mPendingFloatingViewList) {
+            floatingView.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * Reports taps, double taps, long presses and flings of every bubble, null stops the classification.
+     * While a listener is set, a content view's performClick waits for the double tap timeout and a double tap does not click.
+     */
+    public void setGestureListener(FloatingViewGestureListener listener) {
+        mGestureListener = listener;
+        for (FloatingView floatingView : mFloatingViewList) {
+            floatingView.setGestureListener(listener);
+        }
+        for (FloatingView floatingView : mPendingFloatingViewList) {
+            floatingView.setGestureListener(listener);
+        }
+    }
+
+    /**
+     * Keeps the resting position and docked side of bubbles added with an id in the given file.
+     * The file is read and written on a background thread, writes are batched, null stops saving.
+     * A bubble removed by dropping it on the trash is forgotten.
+     */
+    public void setLayoutStoreFile(File file) {
+        if (mLayoutStore != null) {
+            mLayoutStore.close();
+        }
+        mLayoutStore = file != null ? new BubbleLayoutStore(file) : null;
+    }
+
+    /**
+     * Records the touch events of the first bubble touched, batched history included, into a compact binary trace that can be replayed headless.
+     * The trace starts with the screen size, the bubble size, where the bubble was, its drag mode and snap anchors, so the replay starts from the same state.
+     */
+    public void startTouchTrace(OutputStream outputStream) throws IOException {
+        stopTouchTrace();
+        mTouchTraceRecorder = new TouchTraceRecorder(outputStream);
+        setTouchTraceRecorder(mTouchTraceRecorder);
+    }
+
+    /**
+     * Ends the recording and closes its stream, return the number of recorded events.
+     */
+    public int stopTouchTrace() throws IOException {
+        if (mTouchTraceRecorder == null) {
+            return 0;
+        }
+        final TouchTraceRecorder recorder = mTouchTraceRecorder;
+        mTouchTraceRecorder = null;
+        setTouchTraceRecorder(null);
+        final int count = recorder.getCount();
+        recorder.stop();
+        return count;
+    }
+
+    private void setTouchTraceRecorder(TouchTraceRecorder recorder) {
+        for (FloatingView floatingView : mFloatingViewList) {
+            floatingView.setTouchTraceRecorder(recorder);
+        }
+        for (FloatingView floatingView : mPendingFloatingViewList) {
+            floatingView.setTouchTraceRecorder(recorder);
+        }
+    }
+
+    /**
+     * Emits trace sections and counters for systrace and Perfetto on API 18 and later.
+     */
+    public static void setTraceEnabled(boolean enabled) {
+        FloatingTrace.setEnabled(enabled);
+    }
+
+    /**
+     * Total time the CloseView window has been attached, including the current drag.
+     */
+    public long getCloseViewAttachedMillis() {
+        if (mIsCloseViewAttached) {
+            return mCloseViewAttachedMillis + mClock.uptimeMillis() - mCloseViewAttachedTime;
+        }
+        return mCloseViewAttachedMillis;
     }
 
 }
@@ -0,0 +1,6 @@
+package com.floating;
+
+public interface FloatingViewTransactionListener {
+
+    void onTransactionCommitted(int attachedCount, long durationNanos);
+}
@@ -0,0 +1,6 @@
+package com.floating;
+
+public interface FloatingViewTrimListener {
+
+    void onMemoryTrimmed(int trimLevel, int releasedResources);
+}
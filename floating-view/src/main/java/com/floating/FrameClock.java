@@ -0,0 +1,192 @@
+package com.floating;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+class FrameClock {
+
+    private static final long FALLBACK_FRAME_TIME_MILLIS = 17L;
+
+    private static final long NANOS_PER_MILLIS = 1000000L;
+
+    interface FrameCallback {
+
+        // return true to be called again on the next frame
+        boolean doFrame(long frameTimeMillis);
+    }
+
+    interface FrameObserver {
+
+        // isContinuous is false for the first frame after the clock was idle
+        void onFrameDispatched(long frameTimeMillis, boolean isContinuous);
+
+        void onFrameClockIdle();
+    }
+
+    private final ArrayList<FrameCallback> mFrameCallbacks;
+
+    private final ArrayList<FrameCallback> mCommitCallbacks;
+
+    private final VsyncCallback mVsyncCallback;
+
+    private final Handler mHandler;
+
+    private final Runnable mFallbackFrameRunnable;
+
+    private boolean mIsFrameScheduled;
+
+    private boolean mIsDispatching;
+
+    private boolean mIsContinuous;
+
+    private FrameObserver mFrameObserver;
+
+    private final Clock mClock;
+
+    FrameClock(Clock clock) {
+        mClock = clock;
+        mFrameCallbacks = new ArrayList<>();
+        mCommitCallbacks = new ArrayList<>();
+        mHandler = new Handler(Looper.getMainLooper());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mVsyncCallback = new VsyncCallback(this);
+            mFallbackFrameRunnable = null;
+        } else {
+            mVsyncCallback = null;
+            mFallbackFrameRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    dispatchFrame(mClock.uptimeMillis());
+                }
+            };
+        }
+    }
+
+    void addFrameCallback(FrameCallback callback) {
+        addCallback(mFrameCallbacks, callback);
+    }
+
+    void removeFrameCallback(FrameCallback callback) {
+        removeCallback(mFrameCallbacks, callback);
+    }
+
+    // commit callbacks run after every frame callback of the same frame
+    void addCommitCallback(FrameCallback callback) {
+        addCallback(mCommitCallbacks, callback);
+    }
+
+    void removeCommitCallback(FrameCallback callback) {
+        removeCallback(mCommitCallbacks, callback);
+    }
+
+    // now, on the same time base as the frame times
+    long uptimeMillis() {
+        return mClock.uptimeMillis();
+    }
+
+    Clock getClock() {
+        return mClock;
+    }
+
+    void setFrameObserver(FrameObserver frameObserver) {
+        mFrameObserver = frameObserver;
+    }
+
+    private void addCallback(ArrayList<FrameCallback> callbacks, FrameCallback callback) {
+        if (!callbacks.contains(callback)) {
+            callbacks.add(callback);
+        }
+        scheduleFrame();
+    }
+
+    private void removeCallback(ArrayList<FrameCallback> callbacks, FrameCallback callback) {
+        final int index = callbacks.indexOf(callback);
+        if (index == -1) {
+            return;
+        }
+        if (mIsDispatching) {
+            callbacks.set(index, null);
+        } else {
+            callbacks.remove(index);
+        }
+    }
+
+    private void scheduleFrame() {
+        if (mIsFrameScheduled) {
+            return;
+        }
+        mIsFrameScheduled = true;
+        if (mVsyncCallback != null) {
+            mVsyncCallback.post();
+        } else {
+            mHandler.postDelayed(mFallbackFrameRunnable, FALLBACK_FRAME_TIME_MILLIS);
+        }
+    }
+
+    private void dispatchFrame(long frameTimeMillis) {
+        mIsFrameScheduled = false;
+        if (mFrameObserver != null) {
+            mFrameObserver.onFrameDispatched(frameTimeMillis, mIsContinuous);
+        }
+        FloatingTrace.beginSection(FloatingTrace.DO_FRAME);
+        mIsDispatching = true;
+        dispatchCallbacks(mFrameCallbacks, frameTimeMillis);
+        dispatchCallbacks(mCommitCallbacks, frameTimeMillis);
+        mIsDispatching = false;
+        FloatingTrace.endSection();
+
+        removeFinishedCallbacks(mFrameCallbacks);
+        removeFinishedCallbacks(mCommitCallbacks);
+        mIsContinuous = !mFrameCallbacks.isEmpty() || !mCommitCallbacks.isEmpty();
+        if (mIsContinuous) {
+            scheduleFrame();
+        } else if (mFrameObserver != null) {
+            mFrameObserver.onFrameClockIdle();
+        }
+    }
+
+    private static void dispatchCallbacks(ArrayList<FrameCallback> callbacks, long frameTimeMillis) {
+        // callbacks added while dispatching are called from the next frame
+        final int size = callbacks.size();
+        for (int i = 0; i < size; i++) {
+            final FrameCallback callback = callbacks.get(i);
+            if (callback != null && !callback.doFrame(frameTimeMillis)) {
+                callbacks.set(i, null);
+            }
+        }
+    }
+
+    private static void removeFinishedCallbacks(ArrayList<FrameCallback> callbacks) {
+        for (int i = callbacks.size() - 1; i >= 0; i--) {
+            if (callbacks.get(i) == null) {
+                callbacks.remove(i);
+            }
+        }
+    }
+
+    private static class VsyncCallback implements Choreographer.FrameCallback {
+
+        private final FrameClock mFrameClock;
+
+        private final Choreographer mChoreographer;
+
+        VsyncCallback(FrameClock frameClock) {
+            mFrameClock = frameClock;
+            mChoreographer = Choreographer.getInstance();
+        }
+
+        void post() {
+            mChoreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            // same time base as SystemClock.uptimeMillis()
+            mFrameClock.dispatchFrame(frameTimeNanos / NANOS_PER_MILLIS);
+        }
+    }
+}
@@ -14,6 +14,12 @@ import android.view.WindowManager;
  */
 public class FullscreenObserverView extends View implements ViewTreeObserver.OnGlobalLayoutListener, View.OnSystemUiVisibilityChangeListener {
 
+    private static final int STATE_UNKNOWN = 0;
+
+    private static final int STATE_NOT_FULLSCREEN = 1;
+
+    private static final int STATE_FULLSCREEN = 2;
+
     private final WindowManager.LayoutParams mParams;
 
     private final ScreenChangedListener mScreenChangedListener;
@@ -22,10 +28,25 @@ public class FullscreenObserverView extends View implements ViewTreeObserver.OnG
 
     private final Rect mWindowRect;
 
-    FullscreenObserverView(Context context, ScreenChangedListener listener) {
+    private final FrameClock mFrameClock;
+
+    private final FrameClock.FrameCallback mEvaluateCallback;
+
+    private int mState;
+
+    FullscreenObserverView(Context context, FrameClock frameClock, ScreenChangedListener listener) {
         super(context);
 
         mScreenChangedListener = listener;
+        mFrameClock = frameClock;
+        mEvaluateCallback = new FrameClock.FrameCallback() {
+            @Override
+            public boolean doFrame(long frameTimeMillis) {
+                evaluate();
+                return false;
+            }
+        };
+        mState = STATE_UNKNOWN;
 
         mParams = new WindowManager.LayoutParams();
         mParams.width = 1;
@@ -54,24 +75,42 @@ public class FullscreenObserverView extends View implements ViewTreeObserver.OnG
             getViewTreeObserver().removeGlobalOnLayoutListener(this);
         }
         setOnSystemUiVisibilityChangeListener(null);
+        mFrameClock.removeFrameCallback(mEvaluateCallback);
+        mState = STATE_UNKNOWN;
         super.onDetachedFromWindow();
     }
 
     @Override
     public void onGlobalLayout() {
-        if (mScreenChangedListener != null) {
-            getWindowVisibleDisplayFrame(mWindowRect);
-            mScreenChangedListener.onScreenChanged(mLastUiVisibility != View.SYSTEM_UI_FLAG_VISIBLE || mWindowRect.top == 0);
-        }
+        scheduleEvaluation();
     }
 
     @Override
     public void onSystemUiVisibilityChange(int visibility) {
         mLastUiVisibility = visibility;
+        scheduleEvaluation();
+    }
+
+    // layout passes and system ui changes come in bursts, look once per frame
+    private void scheduleEvaluation() {
         if (mScreenChangedListener != null) {
-            getWindowVisibleDisplayFrame(mWindowRect);
-            mScreenChangedListener.onScreenChanged(mLastUiVisibility != View.SYSTEM_UI_FLAG_VISIBLE || mWindowRect.top == 0);
+            mFrameClock.addFrameCallback(mEvaluateCallback);
+        }
+    }
+
+    private void evaluate() {
+        getWindowVisibleDisplayFrame(mWindowRect);
+        final int state = mLastUiVisibility != View.SYSTEM_UI_FLAG_VISIBLE || mWindowRect.top == 0 ? STATE_FULLSCREEN : STATE_NOT_FULLSCREEN;
+        if (state == mState) {
+            return;
+        }
+        final boolean isFirstState = mState == STATE_UNKNOWN;
+        mState = state;
+        // bubbles start out visible, only a change needs to be told
+        if (isFirstState && state == STATE_NOT_FULLSCREEN) {
+            return;
         }
+        mScreenChangedListener.onScreenChanged(state == STATE_FULLSCREEN);
     }
 
     WindowManager.LayoutParams getWindowLayoutParams() {
@@ -0,0 +1,90 @@
+package com.floating;
+
+import android.view.View;
+import android.view.WindowManager;
+
+import java.util.ArrayList;
+
+class LayoutCommitter implements FrameClock.FrameCallback {
+
+    private final FrameClock mFrameClock;
+
+    private final Clock mClock;
+
+    private final ArrayList<FloatingView> mDirtyViews;
+
+    private long mRequestedCount;
+
+    private long mCommittedCount;
+
+    private FloatingViewMetrics mMetrics;
+
+    LayoutCommitter(FrameClock frameClock, Clock clock) {
+        mFrameClock = frameClock;
+        mClock = clock;
+        mDirtyViews = new ArrayList<>();
+    }
+
+    void requestCommit(FloatingView floatingView) {
+        mRequestedCount++;
+        if (!mDirtyViews.contains(floatingView)) {
+            mDirtyViews.add(floatingView);
+            mFrameClock.addCommitCallback(this);
+        }
+    }
+
+    void setMetrics(FloatingViewMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    void cancelCommit(FloatingView floatingView) {
+        mDirtyViews.remove(floatingView);
+    }
+
+    @Override
+    public boolean doFrame(long frameTimeMillis) {
+        final int size = mDirtyViews.size();
+        final long committedCount = mCommittedCount;
+        for (int i = 0; i < size; i++) {
+            mDirtyViews.get(i).commitWindowLayout();
+        }
+        mDirtyViews.clear();
+        FloatingTrace.setCounter(FloatingTrace.COUNTER_LAYOUT_COMMITS, (int) (mCommittedCount - committedCount));
+        return false;
+    }
+
+    // a window update outside the frame batch, counted as requested and committed at once
+    void updateViewLayout(WindowManager windowManager, View view, WindowManager.LayoutParams params) {
+        mRequestedCount++;
+        commitViewLayout(windowManager, view, params);
+    }
+
+    void commitViewLayout(WindowManager windowManager, View view, WindowManager.LayoutParams params) {
+        final long startTime = mMetrics != null ? mClock.nanoTime() : 0;
+        FloatingTrace.beginSection(FloatingTrace.UPDATE_VIEW_LAYOUT);
+        windowManager.updateViewLayout(view, params);
+        FloatingTrace.endSection();
+        onCommitted(startTime);
+    }
+
+    void commitHostTranslation(FloatingView floatingView) {
+        final long startTime = mMetrics != null ? mClock.nanoTime() : 0;
+        floatingView.applyHostTranslation();
+        onCommitted(startTime);
+    }
+
+    private void onCommitted(long startTime) {
+        mCommittedCount++;
+        if (mMetrics != null) {
+            mMetrics.recordLayoutUpdate(mClock.nanoTime() - startTime);
+        }
+    }
+
+    long getCommittedCount() {
+        return mCommittedCount;
+    }
+
+    long getSkippedCount() {
+        return mRequestedCount - mCommittedCount;
+    }
+}
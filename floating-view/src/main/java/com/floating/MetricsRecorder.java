@@ -0,0 +1,61 @@
+package com.floating;
+
+class MetricsRecorder implements FrameClock.FrameObserver {
+
+    private final FloatingViewMetrics mMetrics;
+
+    private final FloatingViewMetricsListener mListener;
+
+    private final float mFramePeriodMillis;
+
+    private long mLastFrameTime;
+
+    private boolean mIsInGesture;
+
+    MetricsRecorder(FloatingViewMetricsListener listener, float refreshRate) {
+        mMetrics = new FloatingViewMetrics();
+        mListener = listener;
+        mFramePeriodMillis = 1000.0f / (refreshRate > 0 ? refreshRate : 60.0f);
+        mLastFrameTime = -1;
+    }
+
+    FloatingViewMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    void onGestureStart() {
+        // whatever was still animating belongs to the previous report
+        reportAnimation();
+        mIsInGesture = true;
+    }
+
+    void onGestureEnd() {
+        if (!mIsInGesture) {
+            return;
+        }
+        mIsInGesture = false;
+        mListener.onGestureMetrics(mMetrics);
+        mMetrics.reset();
+    }
+
+    @Override
+    public void onFrameDispatched(long frameTimeMillis, boolean isContinuous) {
+        mMetrics.recordFrame(isContinuous && mLastFrameTime >= 0 ? frameTimeMillis - mLastFrameTime : -1, mFramePeriodMillis);
+        mLastFrameTime = frameTimeMillis;
+    }
+
+    @Override
+    public void onFrameClockIdle() {
+        mLastFrameTime = -1;
+        if (!mIsInGesture) {
+            reportAnimation();
+        }
+    }
+
+    private void reportAnimation() {
+        if (!mMetrics.isEmpty()) {
+            mListener.onAnimationMetrics(mMetrics);
+            mMetrics.reset();
+        }
+    }
+}
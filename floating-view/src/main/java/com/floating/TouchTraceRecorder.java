@@ -0,0 +1,78 @@
+package com.floating;
+
+import android.view.MotionEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+class TouchTraceRecorder {
+
+    private TouchTraceWriter mWriter;
+
+    private IOException mError;
+
+    // the bubble being recorded, the trace replays a single one
+    private DragModel mDragModel;
+
+    TouchTraceRecorder(OutputStream outputStream) throws IOException {
+        mWriter = new TouchTraceWriter(outputStream);
+    }
+
+    // a failing stream stops the recording, the drag itself carries on
+    void record(DragModel dragModel, MotionEvent event) {
+        if (mWriter == null) {
+            return;
+        }
+        try {
+            if (mDragModel == null) {
+                mWriter.writeHeader(dragModel);
+                mDragModel = dragModel;
+            } else if (mDragModel != dragModel) {
+                return;
+            }
+            final int action = event.getActionMasked();
+            if (action == MotionEvent.ACTION_MOVE) {
+                writeHistory(event);
+            }
+            mWriter.write(action, event.getRawX(), event.getRawY(), event.getX(), event.getY(), event.getEventTime(), event.getDownTime());
+        } catch (IOException e) {
+            mError = e;
+            closeQuietly();
+        }
+    }
+
+    // the samples batched into a move, the replay feeds them to the predictor and the velocity as the view does
+    private void writeHistory(MotionEvent event) throws IOException {
+        final float offsetX = event.getRawX() - event.getX();
+        final float offsetY = event.getRawY() - event.getY();
+        final int historySize = event.getHistorySize();
+        for (int i = 0; i < historySize; i++) {
+            final float x = event.getHistoricalX(i);
+            final float y = event.getHistoricalY(i);
+            mWriter.write(TouchTrace.ACTION_HISTORY, x + offsetX, y + offsetY, x, y, event.getHistoricalEventTime(i), event.getDownTime());
+        }
+    }
+
+    int getCount() {
+        return mWriter != null ? mWriter.getCount() : 0;
+    }
+
+    void stop() throws IOException {
+        if (mError != null) {
+            throw mError;
+        }
+        if (mWriter != null) {
+            final TouchTraceWriter writer = mWriter;
+            mWriter = null;
+            writer.close();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            mWriter.close();
+        } catch (IOException ignored) {
+        }
+        mWriter = null;
+    }
+}
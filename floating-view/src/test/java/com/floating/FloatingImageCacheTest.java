@@ -0,0 +1,22 @@
+package com.floating;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FloatingImageCacheTest {
+
+    @Test
+    public void calcSampleSize_keepsBothSidesAtLeastRequested() throws Exception {
+        assertEquals(1, FloatingImageCache.calcSampleSize(168, 168, 168, 168));
+        assertEquals(4, FloatingImageCache.calcSampleSize(1024, 1024, 168, 168));
+        assertEquals(8, FloatingImageCache.calcSampleSize(1344, 1344, 168, 168));
+        // the shorter side limits the sample size
+        assertEquals(2, FloatingImageCache.calcSampleSize(4000, 400, 168, 168));
+    }
+
+    @Test
+    public void calcSampleSize_neverUpsamples() throws Exception {
+        assertEquals(1, FloatingImageCache.calcSampleSize(96, 96, 168, 168));
+    }
+}